@@ -1,9 +1,9 @@
 package net.revilodev.boundless;
 
 import com.mojang.logging.LogUtils;
-import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.entity.LivingEntity;
 import net.minecraft.world.item.CreativeModeTabs;
 import net.minecraft.world.item.ItemStack;
@@ -21,7 +21,7 @@ import net.neoforged.neoforge.event.RegisterCommandsEvent;
 import net.neoforged.neoforge.event.entity.living.LivingDeathEvent;
 import net.neoforged.neoforge.event.entity.player.PlayerEvent;
 import net.neoforged.neoforge.event.server.ServerStartingEvent;
-import net.neoforged.neoforge.network.PacketDistributor;
+import net.neoforged.neoforge.event.server.ServerStoppedEvent;
 import net.revilodev.boundless.client.QuestBookKeybinds;
 import net.revilodev.boundless.client.ClientQuestEvents;
 import net.revilodev.boundless.client.QuestPanelClient;
@@ -29,13 +29,14 @@ import net.revilodev.boundless.command.BoundlessCommands;
 import net.revilodev.boundless.item.ModItems;
 import net.revilodev.boundless.network.BoundlessNetwork;
 import net.revilodev.boundless.quest.KillCounterState;
+import net.revilodev.boundless.quest.PlayerDataShards;
 import net.revilodev.boundless.quest.QuestData;
+import net.revilodev.boundless.quest.QuestEvaluator;
 import net.revilodev.boundless.quest.QuestEvents;
+import net.revilodev.boundless.quest.QuestTracker;
 import net.revilodev.boundless.quest.ServerQuestEvents;
 import org.slf4j.Logger;
 
-import java.util.List;
-
 @Mod(BoundlessMod.MOD_ID)
 public final class BoundlessMod {
     public static final String MOD_ID = "boundless";
@@ -56,6 +57,16 @@ public final class BoundlessMod {
         NeoForge.EVENT_BUS.addListener(QuestEvents::onPlayerTick);
         NeoForge.EVENT_BUS.addListener(ServerQuestEvents::onLogout);
         NeoForge.EVENT_BUS.addListener(net.revilodev.boundless.quest.ServerQuestTicker::onPlayerTick);
+        NeoForge.EVENT_BUS.addListener(net.revilodev.boundless.quest.ServerQuestTicker::onServerTick);
+        NeoForge.EVENT_BUS.addListener(BoundlessNetwork::flushOutbound);
+        NeoForge.EVENT_BUS.addListener(PlayerDataShards::onLevelSave);
+        NeoForge.EVENT_BUS.addListener(QuestEvaluator::onContainerOpen);
+        NeoForge.EVENT_BUS.addListener(QuestEvaluator::onAdvancementEarn);
+        NeoForge.EVENT_BUS.addListener(QuestEvaluator::onEffectAdded);
+        NeoForge.EVENT_BUS.addListener(QuestEvaluator::onStatAward);
+        NeoForge.EVENT_BUS.addListener(QuestEvaluator::onXpChange);
+        NeoForge.EVENT_BUS.addListener(QuestEvaluator::onLevelChange);
+        NeoForge.EVENT_BUS.addListener(QuestData::onTagsUpdated);
 
     }
 
@@ -95,6 +106,12 @@ public final class BoundlessMod {
     public void onServerStarting(ServerStartingEvent event) {
         LOGGER.info("Boundless server starting");
         QuestData.loadServer(event.getServer(), true);
+        PlayerDataShards.attach(event.getServer());
+    }
+
+    @SubscribeEvent
+    public void onServerStopped(ServerStoppedEvent event) {
+        PlayerDataShards.detach();
     }
 
     @SubscribeEvent
@@ -122,12 +139,10 @@ public final class BoundlessMod {
         if (!(event.getEntity() instanceof LivingEntity victim)) return;
         if (!(event.getSource().getEntity() instanceof ServerPlayer sp)) return;
         if (!(sp.level() instanceof ServerLevel server)) return;
-        ResourceLocation rl = net.minecraft.core.registries.BuiltInRegistries.ENTITY_TYPE.getKey(victim.getType());
-        if (rl == null) return;
-        KillCounterState.get(server).inc(sp.getUUID(), rl.toString());
-        int count = KillCounterState.get(server).get(sp.getUUID(), rl.toString());
-        BoundlessNetwork.KillEntry entry = new BoundlessNetwork.KillEntry(rl.toString(), count);
-        BoundlessNetwork.SyncKills payload = new BoundlessNetwork.SyncKills(List.of(entry));
-        PacketDistributor.sendToPlayer(sp, payload);
+        EntityType<?> type = victim.getType();
+        if (!QuestTracker.shouldCountKill(sp, type)) return;
+        int count = KillCounterState.get(server).inc(sp.getUUID(), type);
+        BoundlessNetwork.queueKillSync(sp, type, count);
+        QuestEvaluator.onKill(sp, type);
     }
 }
@@ -88,6 +88,23 @@ public final class Config {
     public static final ModConfigSpec.ConfigValue<Boolean> SPAWN_WITH_QUEST_BOOK =
             BUILDER.comment("If true, players spawn with the quest book.")
                     .define("spawnWithQuestBook", false);
+    static {
+        BUILDER.pop();
+        BUILDER.push("Performance");
+    }
+    public static final ModConfigSpec.IntValue QUEST_SAFETY_SCAN_INTERVAL =
+            BUILDER.comment("Ticks between full quest re-checks for each player. Quests are otherwise re-checked only when a relevant event happens.")
+                    .defineInRange("questSafetyScanInterval", 600, 20, 72000);
+    public static final ModConfigSpec.IntValue QUEST_TICK_BUDGET_MICROS =
+            BUILDER.comment("Microseconds per server tick that quest checks may use. Checks over budget wait for the next tick, and check intervals stretch while the server is lagging.")
+                    .defineInRange("questTickBudgetMicros", 2000, 100, 50000);
+    public static final ModConfigSpec.ConfigValue<String> KILL_TRACKING_MODE =
+            BUILDER.comment("Which kills are recorded: all, referenced (entity types targeted by a loaded quest), incomplete (only while a quest targeting the entity is incomplete).")
+                    .define("killTrackingMode", "referenced", o -> {
+                        if (!(o instanceof String s)) return false;
+                        s = s.trim().toLowerCase();
+                        return s.equals("all") || s.equals("referenced") || s.equals("incomplete");
+                    });
     static {
         BUILDER.pop();
     }
@@ -187,6 +204,21 @@ public final class Config {
         return DISABLE_QUEST_BOOK.get();
     }
 
+    public static int questSafetyScanInterval() {
+        return QUEST_SAFETY_SCAN_INTERVAL.get();
+    }
+
+    public static int questTickBudgetMicros() {
+        return QUEST_TICK_BUDGET_MICROS.get();
+    }
+
+    public static String killTrackingMode() {
+        String s = KILL_TRACKING_MODE.get();
+        if (s == null) return "referenced";
+        s = s.trim().toLowerCase();
+        return (s.equals("all") || s.equals("referenced") || s.equals("incomplete")) ? s : "referenced";
+    }
+
     // Backward-compatible accessor used by existing callers.
     public static boolean hideQuestBookToggle() {
         return hideQuestBookInInventory();
@@ -195,7 +227,7 @@ public final class Config {
     @SubscribeEvent
     public static void onLoad(ModConfigEvent.Loading e) {
         if (e.getConfig().getSpec() == SPEC)
-            BoundlessMod.LOGGER.info("[Boundless] Config loaded: categories={}, pos={}, hideInvBtn={}, invBtnPos={}, centerInv={}, hideHeader={}, filterMode={}, disableCategories={}, builtinPack={}, hideWidgetIcons={}, searchBox={}, descColors={}, questToasts={}, disablePinning={}, autoClaim={}, questScrolls={}, disableBook={}, spawnBook={}",
+            BoundlessMod.LOGGER.info("[Boundless] Config loaded: categories={}, pos={}, hideInvBtn={}, invBtnPos={}, centerInv={}, hideHeader={}, filterMode={}, disableCategories={}, builtinPack={}, hideWidgetIcons={}, searchBox={}, descColors={}, questToasts={}, disablePinning={}, autoClaim={}, questScrolls={}, disableBook={}, spawnBook={}, safetyScan={}, tickBudget={}, killTracking={}",
                     disabledCategories(),
                     pinnedQuestHudPosition(),
                     hideQuestBookInInventory(),
@@ -213,13 +245,16 @@ public final class Config {
                     autoClaimQuestRewards(),
                     enableQuestScrolls(),
                     disableQuestBook(),
-                    spawnWithQuestBook());
+                    spawnWithQuestBook(),
+                    questSafetyScanInterval(),
+                    questTickBudgetMicros(),
+                    killTrackingMode());
     }
 
     @SubscribeEvent
     public static void onReload(ModConfigEvent.Reloading e) {
         if (e.getConfig().getSpec() == SPEC)
-            BoundlessMod.LOGGER.info("[Boundless] Config reloaded: categories={}, pos={}, hideInvBtn={}, invBtnPos={}, centerInv={}, hideHeader={}, filterMode={}, disableCategories={}, builtinPack={}, hideWidgetIcons={}, searchBox={}, descColors={}, questToasts={}, disablePinning={}, autoClaim={}, questScrolls={}, disableBook={}, spawnBook={}",
+            BoundlessMod.LOGGER.info("[Boundless] Config reloaded: categories={}, pos={}, hideInvBtn={}, invBtnPos={}, centerInv={}, hideHeader={}, filterMode={}, disableCategories={}, builtinPack={}, hideWidgetIcons={}, searchBox={}, descColors={}, questToasts={}, disablePinning={}, autoClaim={}, questScrolls={}, disableBook={}, spawnBook={}, safetyScan={}, tickBudget={}, killTracking={}",
                     disabledCategories(),
                     pinnedQuestHudPosition(),
                     hideQuestBookInInventory(),
@@ -237,6 +272,9 @@ public final class Config {
                     autoClaimQuestRewards(),
                     enableQuestScrolls(),
                     disableQuestBook(),
-                    spawnWithQuestBook());
+                    spawnWithQuestBook(),
+                    questSafetyScanInterval(),
+                    questTickBudgetMicros(),
+                    killTrackingMode());
     }
 }
@@ -3,6 +3,7 @@ package net.revilodev.boundless.client;
 import net.minecraft.client.Minecraft;
 import net.neoforged.neoforge.client.event.ClientPlayerNetworkEvent;
 import net.neoforged.neoforge.event.level.LevelEvent;
+import net.revilodev.boundless.network.BoundlessNetwork;
 import net.revilodev.boundless.quest.QuestData;
 import net.revilodev.boundless.quest.QuestTracker;
 
@@ -16,6 +17,7 @@ public final class ClientQuestEvents {
     public static void onClientLogout(ClientPlayerNetworkEvent.LoggingOut e) {
         QuestTracker.forceSave();
         QuestTracker.setClientMultiplayer(false);
+        BoundlessNetwork.resetClientProgressVersion();
     }
 
     public static void onClientLevelUnload(LevelEvent.Unload e) {
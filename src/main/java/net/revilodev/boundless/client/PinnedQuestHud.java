@@ -463,7 +463,7 @@ public final class PinnedQuestHud {
 
             if (t.isFieldInput()) {
                 String key = q.id + ":field:" + t.id;
-                String value = QuestTracker.getFieldInputProgress(player, key);
+                String value = QuestTracker.getFieldInputProgress(player, q.id, key);
                 boolean done = value != null && value.trim().equalsIgnoreCase(t.id == null ? "" : t.id.trim());
                 return new TargetView(new ItemStack(Items.NAME_TAG), done ? "1/1" : "0/1", done);
             }
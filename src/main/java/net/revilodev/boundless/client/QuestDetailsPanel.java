@@ -409,7 +409,7 @@ public final class QuestDetailsPanel extends AbstractWidget {
                     String key = quest.id + ":field:" + t.id;
                     EditBox box = inputBoxes.computeIfAbsent(key, ignored -> createInputBox());
                     if (!box.isFocused()) {
-                        box.setValue(QuestTracker.getFieldInputProgress(mc.player, key));
+                        box.setValue(QuestTracker.getFieldInputProgress(mc.player, quest.id, key));
                     }
                     box.setHint(Component.literal(t.hint == null ? "" : t.hint));
                     box.setPosition(x + 4, curY[0]);
@@ -1076,7 +1076,7 @@ public final class QuestDetailsPanel extends AbstractWidget {
                 EditBox targetBox = inputBoxes.get(key);
                 if (targetBox != box) continue;
                 String normalized = value == null ? "" : value.trim();
-                QuestTracker.setFieldInputProgress(mc.player, key, normalized);
+                QuestTracker.setFieldInputProgress(mc.player, quest.id, key, normalized);
                 PacketDistributor.sendToServer(new BoundlessNetwork.UpdateFieldInput(quest.id, target.id, normalized));
                 break;
             }
@@ -51,9 +51,14 @@ public final class QuestListWidget extends AbstractWidget {
 
     private String category = "all";
     private boolean bypassFilters = false;
+    private static final int[] NO_OFFSETS = {0};
+
     private List<RowEntry> cachedRows = List.of();
+    // cachedOffsets[i] is the top of row i within the content; the last entry is the content height
+    private int[] cachedOffsets = NO_OFFSETS;
     private int cachedContentHeight = 0;
-    private long cachedTick = Long.MIN_VALUE;
+    private int cachedStateVersion = -1;
+    private int cachedCatalogueVersion = -1;
     private String cachedCategory = null;
     private boolean cachedBypassFilters = false;
     private boolean cachedAllowCompleted = false;
@@ -294,19 +299,23 @@ public final class QuestListWidget extends AbstractWidget {
 
     private void invalidateRowsCache() {
         cachedRows = List.of();
+        cachedOffsets = NO_OFFSETS;
         cachedContentHeight = 0;
-        cachedTick = Long.MIN_VALUE;
+        cachedStateVersion = -1;
     }
 
     private List<RowEntry> rowsForCurrentState() {
         if (mc.player == null) return List.of();
 
-        long tick = mc.level != null ? mc.level.getGameTime() : Long.MIN_VALUE;
+        // rows only change with quest state, the catalogue or the filters, not with the game clock
+        int stateVersion = QuestTracker.clientStateVersion();
+        int catalogueVersion = QuestData.clientCatalogueVersion();
         boolean allowCompleted = QuestFilterBar.allowCompleted();
         boolean allowRejected = QuestFilterBar.allowRejected();
         boolean allowLocked = QuestFilterBar.allowLocked();
 
-        boolean stale = cachedTick != tick
+        boolean stale = cachedStateVersion != stateVersion
+                || cachedCatalogueVersion != catalogueVersion
                 || !Objects.equals(cachedCategory, category)
                 || cachedBypassFilters != bypassFilters
                 || cachedAllowCompleted != allowCompleted
@@ -315,8 +324,10 @@ public final class QuestListWidget extends AbstractWidget {
 
         if (stale) {
             cachedRows = buildRows();
-            cachedContentHeight = contentHeight(cachedRows);
-            cachedTick = tick;
+            cachedOffsets = rowOffsets(cachedRows);
+            cachedContentHeight = cachedOffsets[cachedRows.size()];
+            cachedStateVersion = stateVersion;
+            cachedCatalogueVersion = catalogueVersion;
             cachedCategory = category;
             cachedBypassFilters = bypassFilters;
             cachedAllowCompleted = allowCompleted;
@@ -332,12 +343,27 @@ public final class QuestListWidget extends AbstractWidget {
         return (row.isHeader() ? subHeaderH : rowH) + pad;
     }
 
-    private int contentHeight(List<RowEntry> rows) {
-        int total = 0;
-        for (RowEntry row : rows) {
-            total += rowHeight(row);
+    private int[] rowOffsets(List<RowEntry> rows) {
+        int[] offsets = new int[rows.size() + 1];
+        for (int i = 0; i < rows.size(); i++) {
+            offsets[i + 1] = offsets[i] + rowHeight(rows.get(i));
+        }
+        return offsets;
+    }
+
+    // index of the cached row covering content offset y, or -1 past either end
+    private int rowIndexAt(int y) {
+        int[] offsets = cachedOffsets;
+        int n = offsets.length - 1;
+        if (n <= 0 || y < 0 || y >= offsets[n]) return -1;
+        int lo = 0;
+        int hi = n - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (offsets[mid] <= y) lo = mid;
+            else hi = mid - 1;
         }
-        return total;
+        return lo;
     }
 
     private int contentHeight() {
@@ -355,19 +381,18 @@ public final class QuestListWidget extends AbstractWidget {
         gg.enableScissor(getX(), contentTop, getX() + width, contentTop + viewportHeight);
 
         int yOff = contentTop - Mth.floor(scrollY);
-        int yCursor = yOff;
 
         List<RowEntry> rows = rowsForCurrentState();
+        int[] offsets = cachedOffsets;
+        int first = rowIndexAt(Mth.floor(scrollY));
+        if (first < 0) first = rows.size();
         boolean hideIcons = Config.hideQuestWidgetIcons();
-        for (RowEntry row : rows) {
+        for (int i = first; i < rows.size(); i++) {
+            RowEntry row = rows.get(i);
             int h = row.isHeader() ? subHeaderH : rowH;
-            int top = yCursor;
+            int top = yOff + offsets[i];
 
             if (top > contentTop + viewportHeight) break;
-            if (top + h < contentTop) {
-                yCursor += rowHeight(row);
-                continue;
-            }
 
             if (row.isHeader()) {
                 QuestData.SubCategory sc = row.subCategory;
@@ -444,13 +469,11 @@ public final class QuestListWidget extends AbstractWidget {
                 gg.drawString(mc.font, name, textX, top + 9,
                         deps ? 0xFFFFFF : 0xA0A0A0, false);
             }
-
-            yCursor += rowHeight(row);
         }
 
         gg.disableScissor();
 
-        int content = contentHeight(rows);
+        int content = cachedContentHeight;
         if (content > viewportHeight) {
             float maxScroll = content - viewportHeight;
             float ratio = (float) viewportHeight / (float) content;
@@ -473,25 +496,20 @@ public final class QuestListWidget extends AbstractWidget {
         if (my < getY() + topInset) return false;
 
         int localY = (int) (my - (getY() + topInset) + scrollY);
-        int yCursor = 0;
 
         List<RowEntry> rows = rowsForCurrentState();
-        for (RowEntry row : rows) {
-            int h = rowHeight(row);
-            if (localY >= yCursor && localY < yCursor + h) {
-                if (row.isHeader()) {
-                    toggleSubOpen(row.subCategory);
-                    return true;
-                }
-                if (row.quest != null && onClick != null) {
-                    onClick.accept(row.quest);
-                    return true;
-                }
-                return false;
-            }
-            yCursor += h;
-        }
+        int index = rowIndexAt(localY);
+        if (index < 0) return false;
 
+        RowEntry row = rows.get(index);
+        if (row.isHeader()) {
+            toggleSubOpen(row.subCategory);
+            return true;
+        }
+        if (row.quest != null && onClick != null) {
+            onClick.accept(row.quest);
+            return true;
+        }
         return false;
     }
 
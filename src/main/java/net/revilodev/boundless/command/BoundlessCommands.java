@@ -11,8 +11,10 @@ import net.minecraft.commands.arguments.EntityArgument;
 import net.minecraft.network.chat.Component;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
+import net.revilodev.boundless.Config;
 import net.revilodev.boundless.network.BoundlessNetwork;
 import net.revilodev.boundless.quest.QuestData;
+import net.revilodev.boundless.quest.QuestEvaluator;
 import net.revilodev.boundless.quest.QuestTracker;
 
 import java.io.BufferedReader;
@@ -39,7 +41,7 @@ public final class BoundlessCommands {
                             MinecraftServer server = ctx.getSource().getServer();
                             QuestData.loadServer(server, true);
                             for (ServerPlayer p : server.getPlayerList().getPlayers()) {
-                                BoundlessNetwork.syncPlayer(p);
+                                BoundlessNetwork.syncCatalogue(p);
                             }
                             ctx.getSource().sendSuccess(() -> Component.literal("Quests Reloaded."), true);
                             return 1;
@@ -51,7 +53,7 @@ public final class BoundlessCommands {
                                         .executes(ctx -> resetAll(ctx.getSource(), EntityArgument.getPlayers(ctx, "targets")))))
                         .then(Commands.argument("id", StringArgumentType.string())
                                 .suggests((ctx, builder) -> {
-                                    for (QuestData.Quest q : QuestData.all()) builder.suggest(q.id);
+                                    for (QuestData.Quest q : QuestData.allServer(ctx.getSource().getServer())) builder.suggest(q.id);
                                     return builder.buildFuture();
                                 })
                                 .executes(ctx -> resetQuest(
@@ -70,7 +72,7 @@ public final class BoundlessCommands {
                                         .executes(ctx -> completeAll(ctx.getSource(), EntityArgument.getPlayers(ctx, "targets")))))
                         .then(Commands.argument("id", StringArgumentType.string())
                                 .suggests((ctx, builder) -> {
-                                    for (QuestData.Quest q : QuestData.all()) builder.suggest(q.id);
+                                    for (QuestData.Quest q : QuestData.allServer(ctx.getSource().getServer())) builder.suggest(q.id);
                                     return builder.buildFuture();
                                 })
                                 .executes(ctx -> completeQuest(
@@ -89,7 +91,7 @@ public final class BoundlessCommands {
                                         .executes(ctx -> redeemAll(ctx.getSource(), EntityArgument.getPlayers(ctx, "targets")))))
                         .then(Commands.argument("id", StringArgumentType.string())
                                 .suggests((ctx, builder) -> {
-                                    for (QuestData.Quest q : QuestData.all()) builder.suggest(q.id);
+                                    for (QuestData.Quest q : QuestData.allServer(ctx.getSource().getServer())) builder.suggest(q.id);
                                     return builder.buildFuture();
                                 })
                                 .executes(ctx -> redeemQuest(
@@ -138,9 +140,23 @@ public final class BoundlessCommands {
                                         })
                                         .executes(ctx -> setQuestPackEnabled(ctx.getSource(), StringArgumentType.getString(ctx, "id"), false))))
                         .then(Commands.literal("list")
-                                .executes(ctx -> listQuestPacks(ctx.getSource())))));
+                                .executes(ctx -> listQuestPacks(ctx.getSource()))))
+                .then(Commands.literal("scheduler")
+                        .executes(ctx -> schedulerStatus(ctx.getSource()))));
                 }
 
+    private static int schedulerStatus(CommandSourceStack source) {
+        int backlog = QuestEvaluator.backlog();
+        int players = QuestEvaluator.queuedPlayers();
+        long used = QuestEvaluator.lastTickMicros();
+        int budget = Config.questTickBudgetMicros();
+        String mspt = String.format(Locale.ROOT, "%.1f", QuestEvaluator.lastMspt());
+        int stretch = QuestEvaluator.intervalStretch();
+        source.sendSuccess(() -> Component.literal("Quest checks waiting: " + backlog + " across " + players + " player(s)."), false);
+        source.sendSuccess(() -> Component.literal("Last tick used " + used + "/" + budget + " us, MSPT " + mspt + ", intervals x" + stretch + "."), false);
+        return backlog;
+    }
+
     private static List<ServerPlayer> selfOrEmpty(CommandSourceStack source) {
         ServerPlayer player = source.getPlayer();
         return player == null ? List.of() : List.of(player);
@@ -278,7 +294,7 @@ public final class BoundlessCommands {
         MinecraftServer server = source.getServer();
         QuestData.loadServer(server, true);
         for (ServerPlayer p : server.getPlayerList().getPlayers()) {
-            BoundlessNetwork.syncPlayer(p);
+            BoundlessNetwork.syncCatalogue(p);
         }
         source.sendSuccess(() -> Component.literal("Questpack " + key + " " + (enabled ? "enabled" : "disabled") + "."), true);
         return 1;
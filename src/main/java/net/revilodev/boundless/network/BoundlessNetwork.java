@@ -1,23 +1,25 @@
 package net.revilodev.boundless.network;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.network.codec.StreamCodec;
 import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.tags.TagKey;
+import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.entity.player.Inventory;
 import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 import net.neoforged.api.distmarker.Dist;
 import net.neoforged.api.distmarker.OnlyIn;
 import net.neoforged.bus.api.IEventBus;
+import net.neoforged.neoforge.event.tick.ServerTickEvent;
 import net.neoforged.neoforge.network.PacketDistributor;
 import net.neoforged.neoforge.network.event.RegisterPayloadHandlersEvent;
 import net.neoforged.neoforge.network.handling.IPayloadContext;
@@ -27,27 +29,56 @@ import net.revilodev.boundless.client.toast.QuestUnlockedToast;
 import net.revilodev.boundless.item.ModItems;
 import net.revilodev.boundless.quest.KillCounterState;
 import net.revilodev.boundless.quest.QuestData;
+import net.revilodev.boundless.quest.QuestEvaluator;
 import net.revilodev.boundless.quest.QuestProgressState;
 import net.revilodev.boundless.quest.QuestTracker;
 
-import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public final class BoundlessNetwork {
 
     private static final String CHANNEL = "boundless";
-    private static final String VERSION = "2";
+    private static final String VERSION = "6";
     private static boolean REGISTERED = false;
 
-    private static final Gson GSON = new GsonBuilder().setLenient().create();
     private static final Set<String> REDEEM_IN_FLIGHT = ConcurrentHashMap.newKeySet();
 
     private static final AtomicInteger SYNC_ID_GEN = new AtomicInteger();
     private static final int QUEST_CHUNK_BYTES = 60000;
+    private static byte[] cachedCatalogue = null;
+    private static int cachedCatalogueVersion = -1;
+    private static String cachedCatalogueHash = "";
+    // updates made during a tick, sent as one SyncBatch per player at the end of the server tick
+    private static final Map<ServerPlayer, Outbound> OUTBOUND = new LinkedHashMap<>();
+    // last progress version sent to each player; a snapshot carries the current one, each batch the next
+    private static final Object2IntOpenHashMap<UUID> PROGRESS_VERSION = new Object2IntOpenHashMap<>();
+    // resync requests get at most one snapshot per cooldown; ones arriving sooner are answered when it ends
+    private static final int RESYNC_COOLDOWN_TICKS = 20;
+    private static final Object2IntOpenHashMap<UUID> LAST_RESYNC = new Object2IntOpenHashMap<>();
+    private static final Set<ServerPlayer> RESYNC_DEFERRED = new LinkedHashSet<>();
+    // client side: version of the last snapshot or batch applied, -1 until the first snapshot
+    private static int clientProgressVersion = -1;
+    private static boolean clientResyncRequested;
+
+    // later updates replace earlier ones for the same quest or entity; meta is read when flushed
+    private static final class Outbound {
+        private final Map<String, String> statuses = new LinkedHashMap<>();
+        private final Set<String> meta = new LinkedHashSet<>();
+        private final Reference2IntLinkedOpenHashMap<EntityType<?>> kills = new Reference2IntLinkedOpenHashMap<>();
+        private final Set<String> toasts = new LinkedHashSet<>();
+    }
 
     private BoundlessNetwork() {}
 
@@ -67,15 +98,14 @@ public final class BoundlessNetwork {
         r.playToServer(CreateScroll.TYPE, CreateScroll.CODEC, BoundlessNetwork::handleCreateScroll);
         r.playToServer(RestartRepeatable.TYPE, RestartRepeatable.CODEC, BoundlessNetwork::handleRestartRepeatable);
         r.playToServer(UpdateFieldInput.TYPE, UpdateFieldInput.CODEC, BoundlessNetwork::handleUpdateFieldInput);
+        r.playToServer(CatalogueHandshake.TYPE, CatalogueHandshake.CODEC, BoundlessNetwork::handleCatalogueHandshake);
+        r.playToServer(RequestResync.TYPE, RequestResync.CODEC, BoundlessNetwork::handleRequestResync);
 
-        r.playToClient(SyncStatus.TYPE, SyncStatus.CODEC, BoundlessNetwork::handleSyncStatus);
-        r.playToClient(SyncStatuses.TYPE, SyncStatuses.CODEC, BoundlessNetwork::handleSyncStatuses);
-        r.playToClient(SyncProgressMeta.TYPE, SyncProgressMeta.CODEC, BoundlessNetwork::handleSyncProgressMeta);
-        r.playToClient(SyncKills.TYPE, SyncKills.CODEC, BoundlessNetwork::handleSyncKills);
-        r.playToClient(SyncClear.TYPE, SyncClear.CODEC, BoundlessNetwork::handleSyncClear);
-        r.playToClient(Toast.TYPE, Toast.CODEC, BoundlessNetwork::handleToast);
+        r.playToClient(SyncSnapshot.TYPE, SyncSnapshot.CODEC, BoundlessNetwork::handleSyncSnapshot);
+        r.playToClient(SyncBatch.TYPE, SyncBatch.CODEC, BoundlessNetwork::handleSyncBatch);
         r.playToClient(OpenQuestBook.TYPE, OpenQuestBook.CODEC, BoundlessNetwork::handleOpenQuestBook);
         r.playToClient(SyncQuestsChunk.TYPE, SyncQuestsChunk.CODEC, BoundlessNetwork::handleSyncQuestsChunk);
+        r.playToClient(CatalogueOffer.TYPE, CatalogueOffer.CODEC, BoundlessNetwork::handleCatalogueOffer);
     }
 
     public record Redeem(String questId) implements CustomPacketPayload {
@@ -142,19 +172,6 @@ public final class BoundlessNetwork {
         @Override public Type<UpdateFieldInput> type() { return TYPE; }
     }
 
-    public record SyncStatus(String questId, String status) implements CustomPacketPayload {
-        public static final Type<SyncStatus> TYPE =
-                new Type<>(ResourceLocation.fromNamespaceAndPath("boundless", "sync_status"));
-        public static final StreamCodec<FriendlyByteBuf, SyncStatus> CODEC = StreamCodec.of(
-                (buf, p) -> {
-                    buf.writeUtf(p.questId);
-                    buf.writeUtf(p.status);
-                },
-                buf -> new SyncStatus(buf.readUtf(), buf.readUtf())
-        );
-        @Override public Type<SyncStatus> type() { return TYPE; }
-    }
-
     public record StatusEntry(String questId, String status) {
         public static final StreamCodec<FriendlyByteBuf, StatusEntry> CODEC = StreamCodec.of(
                 (buf, e) -> {
@@ -165,24 +182,6 @@ public final class BoundlessNetwork {
         );
     }
 
-    public record SyncStatuses(List<StatusEntry> entries) implements CustomPacketPayload {
-        public static final Type<SyncStatuses> TYPE =
-                new Type<>(ResourceLocation.fromNamespaceAndPath("boundless", "sync_statuses"));
-        public static final StreamCodec<FriendlyByteBuf, SyncStatuses> CODEC = StreamCodec.of(
-                (buf, p) -> {
-                    buf.writeVarInt(p.entries.size());
-                    for (StatusEntry e : p.entries) StatusEntry.CODEC.encode(buf, e);
-                },
-                buf -> {
-                    int n = buf.readVarInt();
-                    List<StatusEntry> list = new ArrayList<>(n);
-                    for (int i = 0; i < n; i++) list.add(StatusEntry.CODEC.decode(buf));
-                    return new SyncStatuses(list);
-                }
-        );
-        @Override public Type<SyncStatuses> type() { return TYPE; }
-    }
-
     public record ProgressMetaEntry(String questId, int claimCount, boolean scrollRedeemed, boolean scrollCreated) {
         public static final StreamCodec<FriendlyByteBuf, ProgressMetaEntry> CODEC = StreamCodec.of(
                 (buf, e) -> {
@@ -195,24 +194,6 @@ public final class BoundlessNetwork {
         );
     }
 
-    public record SyncProgressMeta(List<ProgressMetaEntry> entries) implements CustomPacketPayload {
-        public static final Type<SyncProgressMeta> TYPE =
-                new Type<>(ResourceLocation.fromNamespaceAndPath("boundless", "sync_progress_meta"));
-        public static final StreamCodec<FriendlyByteBuf, SyncProgressMeta> CODEC = StreamCodec.of(
-                (buf, p) -> {
-                    buf.writeVarInt(p.entries.size());
-                    for (ProgressMetaEntry e : p.entries) ProgressMetaEntry.CODEC.encode(buf, e);
-                },
-                buf -> {
-                    int n = buf.readVarInt();
-                    List<ProgressMetaEntry> list = new ArrayList<>(n);
-                    for (int i = 0; i < n; i++) list.add(ProgressMetaEntry.CODEC.decode(buf));
-                    return new SyncProgressMeta(list);
-                }
-        );
-        @Override public Type<SyncProgressMeta> type() { return TYPE; }
-    }
-
     public record KillEntry(String entityId, int count) {
         public static final StreamCodec<FriendlyByteBuf, KillEntry> CODEC = StreamCodec.of(
                 (buf, e) -> {
@@ -223,42 +204,91 @@ public final class BoundlessNetwork {
         );
     }
 
-
-
-    public record SyncKills(List<KillEntry> entries) implements CustomPacketPayload {
-        public static final Type<SyncKills> TYPE =
-                new Type<>(ResourceLocation.fromNamespaceAndPath("boundless", "sync_kills"));
-        public static final StreamCodec<FriendlyByteBuf, SyncKills> CODEC = StreamCodec.of(
+    public record SyncSnapshot(int version,
+                               List<StatusEntry> statuses,
+                               List<ProgressMetaEntry> meta,
+                               List<KillEntry> kills) implements CustomPacketPayload {
+        public static final Type<SyncSnapshot> TYPE =
+                new Type<>(ResourceLocation.fromNamespaceAndPath("boundless", "sync_snapshot"));
+        public static final StreamCodec<FriendlyByteBuf, SyncSnapshot> CODEC = StreamCodec.of(
                 (buf, p) -> {
-                    buf.writeVarInt(p.entries.size());
-                    for (KillEntry e : p.entries) KillEntry.CODEC.encode(buf, e);
+                    buf.writeVarInt(p.version);
+                    writeList(buf, p.statuses, StatusEntry.CODEC);
+                    writeList(buf, p.meta, ProgressMetaEntry.CODEC);
+                    writeList(buf, p.kills, KillEntry.CODEC);
                 },
-                buf -> {
-                    int n = buf.readVarInt();
-                    List<KillEntry> list = new ArrayList<>(n);
-                    for (int i = 0; i < n; i++) list.add(KillEntry.CODEC.decode(buf));
-                    return new SyncKills(list);
-                }
+                buf -> new SyncSnapshot(buf.readVarInt(),
+                        readList(buf, StatusEntry.CODEC),
+                        readList(buf, ProgressMetaEntry.CODEC),
+                        readList(buf, KillEntry.CODEC))
+        );
+        @Override public Type<SyncSnapshot> type() { return TYPE; }
+    }
+
+    public record SyncBatch(int version,
+                            List<StatusEntry> statuses,
+                            List<ProgressMetaEntry> meta,
+                            List<KillEntry> kills,
+                            List<String> toasts) implements CustomPacketPayload {
+        private static final StreamCodec<FriendlyByteBuf, String> QUEST_ID = StreamCodec.of(
+                (buf, id) -> buf.writeUtf(id), FriendlyByteBuf::readUtf);
+        public static final Type<SyncBatch> TYPE =
+                new Type<>(ResourceLocation.fromNamespaceAndPath("boundless", "sync_batch"));
+        public static final StreamCodec<FriendlyByteBuf, SyncBatch> CODEC = StreamCodec.of(
+                (buf, p) -> {
+                    buf.writeVarInt(p.version);
+                    writeList(buf, p.statuses, StatusEntry.CODEC);
+                    writeList(buf, p.meta, ProgressMetaEntry.CODEC);
+                    writeList(buf, p.kills, KillEntry.CODEC);
+                    writeList(buf, p.toasts, QUEST_ID);
+                },
+                buf -> new SyncBatch(buf.readVarInt(),
+                        readList(buf, StatusEntry.CODEC),
+                        readList(buf, ProgressMetaEntry.CODEC),
+                        readList(buf, KillEntry.CODEC),
+                        readList(buf, QUEST_ID))
         );
-        @Override public Type<SyncKills> type() { return TYPE; }
+        @Override public Type<SyncBatch> type() { return TYPE; }
     }
 
-    public record SyncClear() implements CustomPacketPayload {
-        public static final Type<SyncClear> TYPE =
-                new Type<>(ResourceLocation.fromNamespaceAndPath("boundless", "sync_clear"));
-        public static final StreamCodec<FriendlyByteBuf, SyncClear> CODEC =
-                StreamCodec.of((b, p) -> {}, b -> new SyncClear());
-        @Override public Type<SyncClear> type() { return TYPE; }
+    public record RequestResync() implements CustomPacketPayload {
+        public static final Type<RequestResync> TYPE =
+                new Type<>(ResourceLocation.fromNamespaceAndPath("boundless", "request_resync"));
+        public static final StreamCodec<FriendlyByteBuf, RequestResync> CODEC =
+                StreamCodec.of((buf, p) -> {}, buf -> new RequestResync());
+        @Override public Type<RequestResync> type() { return TYPE; }
     }
 
-    public record Toast(String questId) implements CustomPacketPayload {
-        public static final Type<Toast> TYPE =
-                new Type<>(ResourceLocation.fromNamespaceAndPath("boundless", "toast"));
-        public static final StreamCodec<FriendlyByteBuf, Toast> CODEC = StreamCodec.of(
-                (buf, p) -> buf.writeUtf(p.questId),
-                buf -> new Toast(buf.readUtf())
+    private static <T> void writeList(FriendlyByteBuf buf, List<T> list, StreamCodec<FriendlyByteBuf, T> codec) {
+        buf.writeVarInt(list.size());
+        for (T e : list) codec.encode(buf, e);
+    }
+
+    private static <T> List<T> readList(FriendlyByteBuf buf, StreamCodec<FriendlyByteBuf, T> codec) {
+        int n = buf.readVarInt();
+        List<T> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) list.add(codec.decode(buf));
+        return list;
+    }
+
+    public record CatalogueOffer(String hash) implements CustomPacketPayload {
+        public static final Type<CatalogueOffer> TYPE =
+                new Type<>(ResourceLocation.fromNamespaceAndPath("boundless", "catalogue_offer"));
+        public static final StreamCodec<FriendlyByteBuf, CatalogueOffer> CODEC = StreamCodec.of(
+                (buf, p) -> buf.writeUtf(p.hash),
+                buf -> new CatalogueOffer(buf.readUtf())
+        );
+        @Override public Type<CatalogueOffer> type() { return TYPE; }
+    }
+
+    public record CatalogueHandshake(String cachedHash) implements CustomPacketPayload {
+        public static final Type<CatalogueHandshake> TYPE =
+                new Type<>(ResourceLocation.fromNamespaceAndPath("boundless", "catalogue_handshake"));
+        public static final StreamCodec<FriendlyByteBuf, CatalogueHandshake> CODEC = StreamCodec.of(
+                (buf, p) -> buf.writeUtf(p.cachedHash),
+                buf -> new CatalogueHandshake(buf.readUtf())
         );
-        @Override public Type<Toast> type() { return TYPE; }
+        @Override public Type<CatalogueHandshake> type() { return TYPE; }
     }
 
     public record OpenQuestBook() implements CustomPacketPayload {
@@ -295,22 +325,30 @@ public final class BoundlessNetwork {
     }
 
     public static void syncPlayer(ServerPlayer p) {
-        PacketDistributor.sendToPlayer(p, new SyncClear());
-        sendQuestData(p);
+        syncCatalogue(p);
+        sendSnapshot(p);
+        // completion is re-checked by the quest scheduler once the client has answered the catalogue offer
+        QuestEvaluator.deferUntilCatalogue(p);
+    }
+
+    public static void syncCatalogue(ServerPlayer p) {
+        // the full catalogue only follows if the client's cached copy has a different hash
+        PacketDistributor.sendToPlayer(p, new CatalogueOffer(catalogueHash(p.server)));
+    }
+
+    /** Replaces the player's whole progress on the client; everything after it is sent as numbered batches. */
+    public static void sendSnapshot(ServerPlayer p) {
+        // updates queued earlier this tick predate the snapshot; send them first so they can't land after it
+        Outbound queued = OUTBOUND.remove(p);
+        if (queued != null && !p.hasDisconnected()) sendBatch(p, queued);
 
         List<KillEntry> killEntries = new ArrayList<>();
         KillCounterState.get(p.serverLevel()).snapshotFor(p.getUUID())
                 .forEach((id, ct) -> killEntries.add(new KillEntry(id, ct)));
-        if (!killEntries.isEmpty()) {
-            PacketDistributor.sendToPlayer(p, new SyncKills(killEntries));
-        }
 
         List<StatusEntry> statuses = new ArrayList<>();
         QuestProgressState.get(p.serverLevel()).snapshotFor(p.getUUID())
                 .forEach((questId, status) -> statuses.add(new StatusEntry(questId, status)));
-        if (!statuses.isEmpty()) {
-            PacketDistributor.sendToPlayer(p, new SyncStatuses(statuses));
-        }
 
         List<ProgressMetaEntry> metaEntries = new ArrayList<>();
         QuestProgressState.get(p.serverLevel()).progressSnapshotFor(p.getUUID())
@@ -320,185 +358,100 @@ public final class BoundlessNetwork {
                         progress != null && progress.scrollRedeemed(),
                         progress != null && progress.scrollCreated()
                 )));
-        if (!metaEntries.isEmpty()) {
-            PacketDistributor.sendToPlayer(p, new SyncProgressMeta(metaEntries));
-        }
 
-        syncComputedCompletion(p);
+        int version = PROGRESS_VERSION.getInt(p.getUUID());
+        PacketDistributor.sendToPlayer(p, new SyncSnapshot(version, statuses, metaEntries, killEntries));
     }
 
-    public static void sendProgressMeta(ServerPlayer player, String questId) {
-        if (player == null || questId == null || questId.isBlank()) return;
-        var progress = QuestProgressState.get(player.serverLevel()).progress(player.getUUID(), questId);
-        PacketDistributor.sendToPlayer(player, new SyncProgressMeta(List.of(
-                new ProgressMetaEntry(questId, progress.claimCount(), progress.scrollRedeemed(), progress.scrollCreated())
-        )));
-    }
-
-    private static void syncComputedCompletion(ServerPlayer p) {
-        for (QuestData.Quest q : QuestData.allServer(p.server)) {
-            if (q == null) continue;
-            QuestTracker.Status st = QuestTracker.getStatus(q, p);
-            if (st == QuestTracker.Status.REDEEMED || st == QuestTracker.Status.REJECTED) continue;
-            if (QuestTracker.isReady(q, p) && st == QuestTracker.Status.INCOMPLETE) {
-                if (Config.autoClaimQuestRewards()) {
-                    claimQuest(p, q);
-                } else {
-                    QuestTracker.setServerStatus(p, q.id, QuestTracker.Status.COMPLETED);
-                    sendStatus(p, q.id, QuestTracker.Status.COMPLETED.name());
-                }
-            }
-        }
+    public static void forgetPlayer(ServerPlayer p) {
+        if (p == null) return;
+        PROGRESS_VERSION.removeInt(p.getUUID());
+        OUTBOUND.remove(p);
+        LAST_RESYNC.removeInt(p.getUUID());
+        RESYNC_DEFERRED.remove(p);
     }
 
-    // inside BoundlessNetwork.java
-    private static void sendQuestData(ServerPlayer p) {
-        var quests = QuestData.allServer(p.server);
-        var categories = QuestData.categoriesOrderedServer(p.server);
-        var subCats = QuestData.subCategoriesAllOrderedServer(p.server);
-
-        JsonObject root = new JsonObject();
-
-        JsonArray cats = new JsonArray();
-        for (QuestData.Category c : categories) {
-            JsonObject o = new JsonObject();
-            o.addProperty("id", c.id);
-            o.addProperty("icon", c.icon);
-            o.addProperty("name", c.name);
-            o.addProperty("order", c.order);
-            o.addProperty("excludeFromAll", c.excludeFromAll);
-            o.addProperty("dependency", c.dependency);
-            o.addProperty("autoComplete", c.autoComplete);
-            cats.add(o);
-        }
-        root.add("categories", cats);
-
-        JsonArray scs = new JsonArray();
-        for (QuestData.SubCategory sc : subCats) {
-            JsonObject o = new JsonObject();
-            o.addProperty("id", sc.id);
-            o.addProperty("category", sc.category);
-            o.addProperty("icon", sc.icon);
-            o.addProperty("name", sc.name);
-            o.addProperty("order", sc.order);
-            o.addProperty("defaultOpen", sc.defaultOpen);
-            if (sc.sourcePath != null && !sc.sourcePath.isBlank()) {
-                o.addProperty("sourcePath", sc.sourcePath);
-            }
-
-            JsonArray qids = new JsonArray();
-            for (String qid : sc.quests) qids.add(qid);
-            o.add("quests", qids);
-
-            scs.add(o);
-        }
-        root.add("subCategories", scs);
-
-        JsonArray qs = new JsonArray();
-        for (QuestData.Quest q : quests) {
-            JsonObject o = new JsonObject();
-            o.addProperty("id", q.id);
-            o.addProperty("name", q.name);
-            o.addProperty("icon", q.icon);
-            o.addProperty("description", q.description);
-
-            JsonArray deps = new JsonArray();
-            for (String d : q.dependencies) deps.add(d);
-            o.add("dependencies", deps);
-
-            o.addProperty("optional", q.optional);
-            o.addProperty("repeatable", q.repeatable);
-            o.addProperty("hiddenUnderDependency", q.hiddenUnderDependency);
-
-            if (q.rewards != null) {
-                JsonObject ro = new JsonObject();
-
-                JsonArray items = new JsonArray();
-                for (QuestData.RewardEntry r : q.rewards.items) {
-                    JsonObject io = new JsonObject();
-                    io.addProperty("item", r.item);
-                    io.addProperty("count", r.count);
-                    items.add(io);
-                }
-                ro.add("items", items);
-
-                JsonArray cmds = new JsonArray();
-                for (QuestData.CommandReward cr : q.rewards.commands) {
-                    JsonObject co = new JsonObject();
-                    co.addProperty("command", cr.command);
-                    co.addProperty("icon", cr.icon);
-                    co.addProperty("title", cr.title);
-                    cmds.add(co);
-                }
-                ro.add("commands", cmds);
-
-                JsonArray fns = new JsonArray();
-                for (QuestData.FunctionReward fr : q.rewards.functions) {
-                    JsonObject fo = new JsonObject();
-                    fo.addProperty("function", fr.function);
-                    fo.addProperty("icon", fr.icon);
-                    fo.addProperty("title", fr.title);
-                    fns.add(fo);
-                }
-                ro.add("functions", fns);
-
-                JsonArray lootTables = new JsonArray();
-                for (QuestData.LootTableReward lr : q.rewards.lootTables) {
-                    JsonObject lo = new JsonObject();
-                    lo.addProperty("lootTable", lr.lootTable);
-                    lo.addProperty("icon", lr.icon);
-                    lo.addProperty("title", lr.title);
-                    lootTables.add(lo);
-                }
-                ro.add("lootTables", lootTables);
-
-                ro.addProperty("expType", q.rewards.expType);
-                ro.addProperty("expAmount", q.rewards.expAmount);
+    private static Outbound outbound(ServerPlayer player) {
+        return OUTBOUND.computeIfAbsent(player, k -> new Outbound());
+    }
 
-                o.add("rewards", ro);
-            }
+    public static void queueKillSync(ServerPlayer player, EntityType<?> type, int count) {
+        if (player == null || type == null) return;
+        outbound(player).kills.put(type, count);
+    }
 
-            o.addProperty("type", q.type);
-
-            if (q.completion != null) {
-                JsonObject co = new JsonObject();
-                JsonArray targets = new JsonArray();
-                for (QuestData.Target t : q.completion.targets) {
-                    JsonObject to = new JsonObject();
-                    to.addProperty("kind", t.kind);
-                    to.addProperty("id", t.id);
-                    to.addProperty("count", t.count);
-                    if (t.hint != null && !t.hint.isBlank()) {
-                        to.addProperty("hint", t.hint);
-                    }
-                    targets.add(to);
+    public static void flushOutbound(ServerTickEvent.Post event) {
+        if (!RESYNC_DEFERRED.isEmpty()) {
+            int now = event.getServer().getTickCount();
+            for (ServerPlayer player : List.copyOf(RESYNC_DEFERRED)) {
+                if (player.hasDisconnected()) {
+                    RESYNC_DEFERRED.remove(player);
+                } else if (now - LAST_RESYNC.getInt(player.getUUID()) >= RESYNC_COOLDOWN_TICKS) {
+                    RESYNC_DEFERRED.remove(player);
+                    LAST_RESYNC.put(player.getUUID(), now);
+                    sendSnapshot(player);
                 }
-                co.add("targets", targets);
-                o.add("completion", co);
             }
+        }
+        if (OUTBOUND.isEmpty()) return;
+        for (Map.Entry<ServerPlayer, Outbound> e : OUTBOUND.entrySet()) {
+            ServerPlayer player = e.getKey();
+            if (player.hasDisconnected()) continue;
+            sendBatch(player, e.getValue());
+        }
+        OUTBOUND.clear();
+    }
 
-            o.addProperty("category", q.category);
+    private static void sendBatch(ServerPlayer player, Outbound out) {
+        List<StatusEntry> statuses = new ArrayList<>(out.statuses.size());
+        out.statuses.forEach((questId, status) -> statuses.add(new StatusEntry(questId, status)));
 
-            if (q.subCategory != null && !q.subCategory.isBlank()) {
-                o.addProperty("subCategory", q.subCategory);
-            }
-            if (q.sourcePath != null && !q.sourcePath.isBlank()) {
-                o.addProperty("sourcePath", q.sourcePath);
-            }
+        List<ProgressMetaEntry> meta = new ArrayList<>(out.meta.size());
+        QuestProgressState progressState = out.meta.isEmpty() ? null : QuestProgressState.get(player.serverLevel());
+        for (String questId : out.meta) {
+            var progress = progressState.progress(player.getUUID(), questId);
+            meta.add(new ProgressMetaEntry(questId, progress.claimCount(), progress.scrollRedeemed(), progress.scrollCreated()));
+        }
 
-            qs.add(o);
+        List<KillEntry> kills = new ArrayList<>(out.kills.size());
+        for (Reference2IntMap.Entry<EntityType<?>> kill : out.kills.reference2IntEntrySet()) {
+            kills.add(new KillEntry(BuiltInRegistries.ENTITY_TYPE.getKey(kill.getKey()).toString(), kill.getIntValue()));
         }
 
-        root.add("quests", qs);
+        int version = PROGRESS_VERSION.addTo(player.getUUID(), 1) + 1;
+        PacketDistributor.sendToPlayer(player, new SyncBatch(version, statuses, meta, kills, List.copyOf(out.toasts)));
+    }
+
+    public static void sendProgressMeta(ServerPlayer player, String questId) {
+        if (player == null || questId == null || questId.isBlank()) return;
+        outbound(player).meta.add(questId);
+    }
 
-        String json = GSON.toJson(root);
-        sendQuestJsonChunked(p, json);
+    // inside BoundlessNetwork.java
+    private static void sendQuestData(ServerPlayer p) {
+        sendQuestBytesChunked(p, encodedCatalogue(p.server));
+    }
+
+    private static synchronized byte[] encodedCatalogue(MinecraftServer server) {
+        var quests = QuestData.allServer(server);
+        var categories = QuestData.categoriesOrderedServer(server);
+        var subCats = QuestData.subCategoriesAllOrderedServer(server);
+        int version = QuestData.catalogueVersion();
+        if (cachedCatalogue == null || cachedCatalogueVersion != version) {
+            cachedCatalogue = QuestCatalogueCodec.encode(new QuestCatalogueCodec.Catalogue(
+                    List.copyOf(categories), List.copyOf(subCats), List.copyOf(quests)));
+            cachedCatalogueHash = QuestCatalogueCodec.hash(cachedCatalogue);
+            cachedCatalogueVersion = version;
+        }
+        return cachedCatalogue;
     }
 
+    private static synchronized String catalogueHash(MinecraftServer server) {
+        encodedCatalogue(server);
+        return cachedCatalogueHash;
+    }
 
-    private static void sendQuestJsonChunked(ServerPlayer p, String json) {
-        if (json == null) json = "";
-        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+    private static void sendQuestBytesChunked(ServerPlayer p, byte[] bytes) {
         int syncId = SYNC_ID_GEN.incrementAndGet();
 
         int total = (bytes.length + QUEST_CHUNK_BYTES - 1) / QUEST_CHUNK_BYTES;
@@ -513,11 +466,13 @@ public final class BoundlessNetwork {
     }
 
     public static void sendStatus(ServerPlayer p, String questId, String status) {
-        PacketDistributor.sendToPlayer(p, new SyncStatus(questId, status));
+        if (p == null || questId == null) return;
+        outbound(p).statuses.put(questId, status);
     }
 
     public static void sendToast(ServerPlayer p, String questId) {
-        PacketDistributor.sendToPlayer(p, new Toast(questId));
+        if (p == null || questId == null) return;
+        outbound(p).toasts.add(questId);
     }
 
     public static void sendOpenQuestBook(ServerPlayer p) {
@@ -605,51 +560,56 @@ public final class BoundlessNetwork {
             }
             if (!validFieldTarget) return;
             String key = p.questId() + ":field:" + p.targetId();
-            QuestTracker.setFieldInputProgress(sp, key, p.value());
+            QuestTracker.setFieldInputProgress(sp, quest.id, key, p.value());
+            QuestEvaluator.markQuest(sp, quest.id);
         });
     }
 
-    private static void handleSyncStatus(SyncStatus p, IPayloadContext ctx) {
-        ctx.enqueueWork(() ->
-                QuestTracker.clientSetStatus(p.questId(), QuestTracker.decodeStatus(p.status()))
-        );
-    }
-
-    private static void handleSyncStatuses(SyncStatuses p, IPayloadContext ctx) {
+    private static void handleSyncSnapshot(SyncSnapshot p, IPayloadContext ctx) {
         ctx.enqueueWork(() -> {
-            for (StatusEntry e : p.entries()) {
-                QuestTracker.clientSetStatus(e.questId(), QuestTracker.decodeStatus(e.status()));
-            }
+            QuestTracker.clientClearAll();
+            applyProgress(p.statuses(), p.meta(), p.kills());
+            clientProgressVersion = p.version();
+            clientResyncRequested = false;
         });
     }
 
-    private static void handleSyncProgressMeta(SyncProgressMeta p, IPayloadContext ctx) {
+    private static void handleSyncBatch(SyncBatch p, IPayloadContext ctx) {
         ctx.enqueueWork(() -> {
-            for (ProgressMetaEntry e : p.entries()) {
-                QuestTracker.clientSetClaimCount(e.questId(), e.claimCount());
-                QuestTracker.clientSetScrollRedeemed(e.questId(), e.scrollRedeemed());
-                QuestTracker.clientSetScrollCreated(e.questId(), e.scrollCreated());
+            if (clientProgressVersion < 0 || p.version() != clientProgressVersion + 1) {
+                // a batch went missing or arrived before the snapshot; the next snapshot covers it
+                if (!clientResyncRequested) {
+                    clientResyncRequested = true;
+                    ctx.reply(new RequestResync());
+                }
+                return;
+            }
+            clientProgressVersion = p.version();
+            applyProgress(p.statuses(), p.meta(), p.kills());
+            for (String questId : p.toasts()) {
+                QuestData.byId(questId).ifPresent(q ->
+                        QuestUnlockedToast.show(q.name, q.iconItem().orElse(null))
+                );
             }
         });
     }
 
-    private static void handleSyncKills(SyncKills p, IPayloadContext ctx) {
-        ctx.enqueueWork(() -> {
-            for (KillEntry e : p.entries())
-                QuestTracker.clientSetKill(e.entityId(), e.count());
-        });
-    }
-
-    private static void handleSyncClear(SyncClear p, IPayloadContext ctx) {
-        ctx.enqueueWork(QuestTracker::clientClearAll);
+    public static void resetClientProgressVersion() {
+        clientProgressVersion = -1;
+        clientResyncRequested = false;
     }
 
-    private static void handleToast(Toast p, IPayloadContext ctx) {
-        ctx.enqueueWork(() ->
-                QuestData.byId(p.questId()).ifPresent(q ->
-                        QuestUnlockedToast.show(q.name, q.iconItem().orElse(null))
-                )
-        );
+    private static void applyProgress(List<StatusEntry> statuses, List<ProgressMetaEntry> meta, List<KillEntry> kills) {
+        for (StatusEntry e : statuses) {
+            QuestTracker.clientSetStatus(e.questId(), QuestTracker.decodeStatus(e.status()));
+        }
+        for (ProgressMetaEntry e : meta) {
+            QuestTracker.clientSetClaimCount(e.questId(), e.claimCount());
+            QuestTracker.clientSetScrollRedeemed(e.questId(), e.scrollRedeemed());
+            QuestTracker.clientSetScrollCreated(e.questId(), e.scrollCreated());
+        }
+        for (KillEntry e : kills)
+            QuestTracker.clientSetKill(e.entityId(), e.count());
     }
 
     private static void handleOpenQuestBook(OpenQuestBook p, IPayloadContext ctx) {
@@ -664,6 +624,37 @@ public final class BoundlessNetwork {
         ctx.enqueueWork(() -> ClientQuestSync.accept(p));
     }
 
+    private static void handleCatalogueOffer(CatalogueOffer p, IPayloadContext ctx) {
+        ctx.enqueueWork(() -> {
+            // in singleplayer the integrated server's catalogue is shared as is, so nothing needs sending
+            String hash = QuestData.adoptIntegratedCatalogue() ? p.hash() : ClientQuestSync.loadCached(p.hash());
+            ctx.reply(new CatalogueHandshake(hash));
+        });
+    }
+
+    private static void handleRequestResync(RequestResync p, IPayloadContext ctx) {
+        ctx.enqueueWork(() -> {
+            ServerPlayer sp = (ServerPlayer) ctx.player();
+            if (sp == null) return;
+            int now = sp.server.getTickCount();
+            if (LAST_RESYNC.containsKey(sp.getUUID()) && now - LAST_RESYNC.getInt(sp.getUUID()) < RESYNC_COOLDOWN_TICKS) {
+                RESYNC_DEFERRED.add(sp);
+                return;
+            }
+            LAST_RESYNC.put(sp.getUUID(), now);
+            sendSnapshot(sp);
+        });
+    }
+
+    private static void handleCatalogueHandshake(CatalogueHandshake p, IPayloadContext ctx) {
+        ctx.enqueueWork(() -> {
+            ServerPlayer sp = (ServerPlayer) ctx.player();
+            if (sp == null) return;
+            if (!catalogueHash(sp.server).equals(p.cachedHash())) sendQuestData(sp);
+            QuestEvaluator.catalogueReady(sp);
+        });
+    }
+
     private static boolean questHasSubmit(QuestData.Quest q) {
         if (q == null || q.completion == null) return false;
 
@@ -686,11 +677,16 @@ public final class BoundlessNetwork {
         if (sp == null || q == null) return false;
         String lockKey = sp.getUUID() + ":" + q.id;
         if (!REDEEM_IN_FLIGHT.add(lockKey)) return false;
+        QuestTracker.invalidateInventory(sp);
         try {
             QuestTracker.Status status = QuestTracker.getStatus(q, sp);
             if (status == QuestTracker.Status.REDEEMED || status == QuestTracker.Status.REJECTED) return false;
             if (!QuestTracker.isReady(q, sp)) return false;
-            if (questHasSubmit(q) && !consumeSubmitTargets(sp, q)) return false;
+            if (questHasSubmit(q)) {
+                boolean consumed = consumeSubmitTargets(sp, q);
+                QuestTracker.invalidateInventory(sp);
+                if (!consumed) return false;
+            }
             boolean ok;
             try {
                 ok = QuestTracker.serverRedeem(q, sp);
@@ -943,10 +939,55 @@ public final class BoundlessNetwork {
                     off += b.length;
                 }
 
-                String json = new String(all, StandardCharsets.UTF_8);
                 reset();
-                QuestData.applyNetworkJson(json);
+                if (apply(all)) saveCached(all);
+                else QuestData.applyNetworkCatalogue(null, null, null);
             }
         }
+
+        private static boolean apply(byte[] bytes) {
+            QuestCatalogueCodec.Catalogue catalogue;
+            try {
+                catalogue = QuestCatalogueCodec.decode(bytes);
+            } catch (Exception e) {
+                return false;
+            }
+            QuestData.applyNetworkCatalogue(catalogue.categories(), catalogue.subCategories(), catalogue.quests());
+            return true;
+        }
+
+        // returns the hash of the cached catalogue if it matched the offer and was applied, else ""
+        private static String loadCached(String offeredHash) {
+            if (offeredHash == null || offeredHash.isBlank()) return "";
+            try {
+                Path path = cachePath();
+                if (!Files.exists(path)) return "";
+                byte[] bytes = Files.readAllBytes(path);
+                if (!offeredHash.equals(QuestCatalogueCodec.hash(bytes))) return "";
+                return apply(bytes) ? offeredHash : "";
+            } catch (Exception ignored) {
+                return "";
+            }
+        }
+
+        private static void saveCached(byte[] bytes) {
+            try {
+                Path path = cachePath();
+                Files.createDirectories(path.getParent());
+                Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+                Files.write(tmp, bytes);
+                try {
+                    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (Exception ignored) {}
+        }
+
+        private static Path cachePath() {
+            var mc = net.minecraft.client.Minecraft.getInstance();
+            return mc.gameDirectory.toPath().resolve("config/boundless/quest_catalogue")
+                    .resolve(QuestTracker.clientStateKey() + ".bin");
+        }
     }
 }
@@ -0,0 +1,356 @@
+package net.revilodev.boundless.network;
+
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.objects.Object2IntLinkedOpenHashMap;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.revilodev.boundless.quest.QuestData;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary wire format for the quest catalogue. Every string is written once to a
+ * table and referenced by index; the result is deflated when that makes it smaller.
+ */
+public final class QuestCatalogueCodec {
+    private QuestCatalogueCodec() {}
+
+    private static final int FORMAT_RAW = 0;
+    private static final int FORMAT_DEFLATED = 1;
+    private static final int MAX_INFLATED_BYTES = 64 * 1024 * 1024;
+
+    private static final int FLAG_LOCK_AFTER_DEPENDENCY = 1;
+    private static final int FLAG_OPTIONAL = 1 << 1;
+    private static final int FLAG_REPEATABLE = 1 << 2;
+    private static final int FLAG_AUTO_COMPLETE = 1 << 3;
+    private static final int FLAG_HIDDEN_UNDER_DEPENDENCY = 1 << 4;
+    private static final int FLAG_HAS_REWARDS = 1 << 5;
+    private static final int FLAG_HAS_COMPLETION = 1 << 6;
+
+    public record Catalogue(List<QuestData.Category> categories,
+                            List<QuestData.SubCategory> subCategories,
+                            List<QuestData.Quest> quests) {}
+
+    public static final StreamCodec<FriendlyByteBuf, Catalogue> CODEC =
+            StreamCodec.of(QuestCatalogueCodec::write, QuestCatalogueCodec::read);
+
+    public static byte[] encode(Catalogue catalogue) {
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        try {
+            CODEC.encode(buf, catalogue);
+            byte[] raw = new byte[buf.readableBytes()];
+            buf.readBytes(raw);
+
+            byte[] deflated = deflate(raw);
+            boolean useDeflated = deflated.length < raw.length;
+            byte[] body = useDeflated ? deflated : raw;
+            byte[] out = new byte[body.length + 1];
+            out[0] = (byte) (useDeflated ? FORMAT_DEFLATED : FORMAT_RAW);
+            System.arraycopy(body, 0, out, 1, body.length);
+            return out;
+        } finally {
+            buf.release();
+        }
+    }
+
+    public static Catalogue decode(byte[] data) throws DataFormatException {
+        if (data == null || data.length == 0) throw new DataFormatException("empty catalogue");
+        byte[] body = new byte[data.length - 1];
+        System.arraycopy(data, 1, body, 0, body.length);
+        if (data[0] == FORMAT_DEFLATED) body = inflate(body);
+        else if (data[0] != FORMAT_RAW) throw new DataFormatException("unknown catalogue format " + data[0]);
+
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.wrappedBuffer(body));
+        try {
+            return CODEC.decode(buf);
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static void write(FriendlyByteBuf out, Catalogue c) {
+        Object2IntLinkedOpenHashMap<String> table = new Object2IntLinkedOpenHashMap<>();
+        FriendlyByteBuf body = new FriendlyByteBuf(Unpooled.buffer());
+        try {
+            Writer w = new Writer(body, table);
+
+            body.writeVarInt(c.categories().size());
+            for (QuestData.Category cat : c.categories()) {
+                w.str(cat.id);
+                w.str(cat.icon);
+                w.str(cat.name);
+                body.writeInt(cat.order);
+                body.writeBoolean(cat.excludeFromAll);
+                w.str(cat.dependency);
+                body.writeBoolean(cat.autoComplete);
+            }
+
+            body.writeVarInt(c.subCategories().size());
+            for (QuestData.SubCategory sc : c.subCategories()) {
+                w.str(sc.id);
+                w.str(sc.category);
+                w.str(sc.icon);
+                w.str(sc.name);
+                body.writeInt(sc.order);
+                body.writeBoolean(sc.defaultOpen);
+                w.strings(sc.quests);
+                w.str(sc.sourcePath);
+            }
+
+            body.writeVarInt(c.quests().size());
+            for (QuestData.Quest q : c.quests()) {
+                w.str(q.id);
+                w.str(q.name);
+                w.str(q.icon);
+                w.str(q.description);
+                w.strings(q.dependencies);
+
+                int flags = 0;
+                if (q.lockAfterDependency) flags |= FLAG_LOCK_AFTER_DEPENDENCY;
+                if (q.optional) flags |= FLAG_OPTIONAL;
+                if (q.repeatable) flags |= FLAG_REPEATABLE;
+                if (q.autoComplete) flags |= FLAG_AUTO_COMPLETE;
+                if (q.hiddenUnderDependency) flags |= FLAG_HIDDEN_UNDER_DEPENDENCY;
+                if (q.rewards != null) flags |= FLAG_HAS_REWARDS;
+                if (q.completion != null) flags |= FLAG_HAS_COMPLETION;
+                body.writeVarInt(flags);
+
+                if (q.rewards != null) {
+                    QuestData.Rewards r = q.rewards;
+                    body.writeVarInt(r.items.size());
+                    for (QuestData.RewardEntry e : r.items) {
+                        w.str(e.item);
+                        body.writeVarInt(e.count);
+                    }
+                    body.writeVarInt(r.commands.size());
+                    for (QuestData.CommandReward cr : r.commands) {
+                        w.str(cr.command);
+                        w.str(cr.icon);
+                        w.str(cr.title);
+                    }
+                    body.writeVarInt(r.functions.size());
+                    for (QuestData.FunctionReward fr : r.functions) {
+                        w.str(fr.function);
+                        w.str(fr.icon);
+                        w.str(fr.title);
+                    }
+                    body.writeVarInt(r.lootTables.size());
+                    for (QuestData.LootTableReward lr : r.lootTables) {
+                        w.str(lr.lootTable);
+                        w.str(lr.icon);
+                        w.str(lr.title);
+                    }
+                    w.str(r.expType);
+                    body.writeVarInt(r.expAmount);
+                }
+
+                w.str(q.type);
+
+                if (q.completion != null) {
+                    body.writeVarInt(q.completion.targets.size());
+                    for (QuestData.Target t : q.completion.targets) {
+                        w.str(t.kind);
+                        w.str(t.id);
+                        body.writeVarInt(t.count);
+                        w.str(t.hint);
+                    }
+                }
+
+                w.str(q.category);
+                w.str(q.subCategory);
+                w.str(q.sourcePath);
+            }
+
+            out.writeVarInt(table.size());
+            for (String s : table.keySet()) out.writeByteArray(s.getBytes(StandardCharsets.UTF_8));
+            out.writeBytes(body);
+        } finally {
+            body.release();
+        }
+    }
+
+    private static Catalogue read(FriendlyByteBuf in) {
+        int tableSize = in.readVarInt();
+        if (tableSize < 0 || tableSize > in.readableBytes()) throw new IllegalArgumentException("string table " + tableSize);
+        String[] table = new String[tableSize];
+        for (int i = 0; i < tableSize; i++) table[i] = new String(in.readByteArray(), StandardCharsets.UTF_8);
+        Reader r = new Reader(in, table);
+
+        int catCount = r.count();
+        List<QuestData.Category> categories = new ArrayList<>(catCount);
+        for (int i = 0; i < catCount; i++) {
+            String id = r.str();
+            String icon = r.str();
+            String name = r.str();
+            int order = in.readInt();
+            boolean excludeFromAll = in.readBoolean();
+            String dependency = r.str();
+            boolean autoComplete = in.readBoolean();
+            categories.add(new QuestData.Category(id, icon, name, order, excludeFromAll, dependency, autoComplete));
+        }
+
+        int subCount = r.count();
+        List<QuestData.SubCategory> subCategories = new ArrayList<>(subCount);
+        for (int i = 0; i < subCount; i++) {
+            String id = r.str();
+            String category = r.str();
+            String icon = r.str();
+            String name = r.str();
+            int order = in.readInt();
+            boolean defaultOpen = in.readBoolean();
+            List<String> quests = r.strings();
+            String sourcePath = r.str();
+            subCategories.add(new QuestData.SubCategory(id, category, icon, name, order, defaultOpen, quests, sourcePath));
+        }
+
+        int questCount = r.count();
+        List<QuestData.Quest> quests = new ArrayList<>(questCount);
+        for (int i = 0; i < questCount; i++) {
+            String id = r.str();
+            String name = r.str();
+            String icon = r.str();
+            String description = r.str();
+            List<String> deps = r.strings();
+            int flags = in.readVarInt();
+
+            QuestData.Rewards rewards = null;
+            if ((flags & FLAG_HAS_REWARDS) != 0) {
+                int n = r.count();
+                List<QuestData.RewardEntry> items = new ArrayList<>(n);
+                for (int j = 0; j < n; j++) items.add(new QuestData.RewardEntry(r.str(), in.readVarInt()));
+                n = r.count();
+                List<QuestData.CommandReward> commands = new ArrayList<>(n);
+                for (int j = 0; j < n; j++) commands.add(new QuestData.CommandReward(r.str(), r.str(), r.str()));
+                n = r.count();
+                List<QuestData.FunctionReward> functions = new ArrayList<>(n);
+                for (int j = 0; j < n; j++) functions.add(new QuestData.FunctionReward(r.str(), r.str(), r.str()));
+                n = r.count();
+                List<QuestData.LootTableReward> lootTables = new ArrayList<>(n);
+                for (int j = 0; j < n; j++) lootTables.add(new QuestData.LootTableReward(r.str(), r.str(), r.str()));
+                String expType = r.str();
+                int expAmount = in.readVarInt();
+                rewards = new QuestData.Rewards(items, commands, functions, lootTables, expType, expAmount);
+            }
+
+            String type = r.str();
+
+            QuestData.Completion completion = null;
+            if ((flags & FLAG_HAS_COMPLETION) != 0) {
+                int n = r.count();
+                List<QuestData.Target> targets = new ArrayList<>(n);
+                for (int j = 0; j < n; j++) {
+                    String kind = r.str();
+                    String tid = r.str();
+                    int count = in.readVarInt();
+                    String hint = r.str();
+                    targets.add(new QuestData.Target(kind, tid, count, hint));
+                }
+                completion = new QuestData.Completion(targets);
+            }
+
+            String category = r.str();
+            String subCategory = r.str();
+            String sourcePath = r.str();
+
+            quests.add(new QuestData.Quest(id, name, icon, description, deps,
+                    (flags & FLAG_LOCK_AFTER_DEPENDENCY) != 0,
+                    (flags & FLAG_OPTIONAL) != 0,
+                    (flags & FLAG_REPEATABLE) != 0,
+                    (flags & FLAG_AUTO_COMPLETE) != 0,
+                    (flags & FLAG_HIDDEN_UNDER_DEPENDENCY) != 0,
+                    rewards, type, completion, category, subCategory, sourcePath));
+        }
+
+        return new Catalogue(categories, subCategories, quests);
+    }
+
+    public static String hash(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length * 4));
+            byte[] chunk = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(chunk);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("truncated catalogue");
+                }
+                out.write(chunk, 0, n);
+                if (out.size() > MAX_INFLATED_BYTES) throw new DataFormatException("catalogue too large");
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private record Writer(FriendlyByteBuf buf, Object2IntLinkedOpenHashMap<String> table) {
+        void str(String s) {
+            if (s == null) s = "";
+            int index = table.getOrDefault(s, -1);
+            if (index < 0) {
+                index = table.size();
+                table.put(s, index);
+            }
+            buf.writeVarInt(index);
+        }
+
+        void strings(List<String> list) {
+            buf.writeVarInt(list.size());
+            for (String s : list) str(s);
+        }
+    }
+
+    private record Reader(FriendlyByteBuf buf, String[] table) {
+        String str() {
+            return table[buf.readVarInt()];
+        }
+
+        int count() {
+            int n = buf.readVarInt();
+            if (n < 0 || n > buf.readableBytes()) throw new IllegalArgumentException("bad count " + n);
+            return n;
+        }
+
+        List<String> strings() {
+            int n = count();
+            List<String> out = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) out.add(str());
+            return out;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package net.revilodev.boundless.quest;
+
+import net.minecraft.client.Minecraft;
+import net.neoforged.api.distmarker.Dist;
+import net.neoforged.api.distmarker.OnlyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces client quest-state saves. Callers mark a key dirty; the snapshot is taken
+ * on the client thread once the debounce window passes and written on a background thread.
+ */
+@OnlyIn(Dist.CLIENT)
+final class ClientQuestStateWriter {
+    private ClientQuestStateWriter() {}
+
+    private static final long DEBOUNCE_MS = 1000L;
+    private static final long FLUSH_TIMEOUT_MS = 2000L;
+
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Boundless Quest State Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Set<String> DIRTY = ConcurrentHashMap.newKeySet();
+
+    static void markDirty(String key, Path path, Supplier<String> snapshot) {
+        if (!DIRTY.add(key)) return;
+        EXECUTOR.schedule(() -> Minecraft.getInstance().execute(() -> {
+            if (DIRTY.remove(key)) submit(path, snapshot.get());
+        }), DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    static void flush(String key, Path path, Supplier<String> snapshot) {
+        DIRTY.remove(key);
+        try {
+            submit(path, snapshot.get()).get(FLUSH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (Exception ignored) {}
+    }
+
+    private static Future<?> submit(Path path, String content) {
+        return EXECUTOR.submit(() -> write(path, content));
+    }
+
+    private static void write(Path path, String content) {
+        try {
+            Files.createDirectories(path.getParent());
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            Files.writeString(tmp, content, StandardCharsets.UTF_8);
+            try {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (Exception ignored) {}
+    }
+}
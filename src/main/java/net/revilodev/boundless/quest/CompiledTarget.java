@@ -0,0 +1,158 @@
+package net.revilodev.boundless.quest;
+
+import net.minecraft.advancements.AdvancementHolder;
+import net.minecraft.core.Holder;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.ServerAdvancementManager;
+import net.minecraft.stats.Stat;
+import net.minecraft.stats.Stats;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.effect.MobEffect;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.level.block.Block;
+
+import java.util.Locale;
+
+/**
+ * A completion target with its registry objects resolved once, so readiness checks
+ * do not parse ids or look anything up by name.
+ */
+final class CompiledTarget {
+    enum Kind { ITEM, SUBMIT, ENTITY, EFFECT, ADVANCEMENT, STAT, XP, LEVELUP_LEVEL, FIELD, UNKNOWN }
+
+    final QuestData.Target target;
+    final Kind kind;
+    final String questId;
+    // key this target's stored progress is filed under; null for kinds without stored progress
+    final String progressKey;
+    final int count;
+    final Item item;
+    final TagKey<Item> itemTag;
+    final TagKey<Block> blockTag;
+    final EntityType<?> entity;
+    final Holder<MobEffect> effect;
+    final ResourceLocation advancement;
+    final Stat<?> stat;
+    final boolean xpLevels;
+    final String fieldValue;
+
+    // advancement holders are replaced on datapack reload, which also replaces the manager
+    private ServerAdvancementManager advancementManager;
+    private AdvancementHolder advancementHolder;
+
+    private CompiledTarget(QuestData.Quest q, QuestData.Target t) {
+        this.target = t;
+        this.count = t.count;
+        this.kind = kindOf(q, t);
+        this.questId = q.id;
+        this.progressKey = switch (kind) {
+            case ITEM -> q.id + ":" + t.id;
+            case EFFECT -> q.id + ":effect:" + t.id;
+            case FIELD -> q.id + ":field:" + t.id;
+            default -> null;
+        };
+
+        Item item = null;
+        TagKey<Item> itemTag = null;
+        TagKey<Block> blockTag = null;
+        EntityType<?> entity = null;
+        Holder<MobEffect> effect = null;
+        ResourceLocation advancement = null;
+        Stat<?> stat = null;
+        String id = t.id == null ? "" : t.id;
+
+        try {
+            switch (kind) {
+                case ITEM, SUBMIT -> {
+                    boolean tag = id.startsWith("#");
+                    ResourceLocation rl = ResourceLocation.tryParse(tag ? id.substring(1) : id);
+                    if (rl != null) {
+                        if (!tag) item = BuiltInRegistries.ITEM.getOptional(rl).orElse(null);
+                        if (item == null) {
+                            itemTag = TagKey.create(Registries.ITEM, rl);
+                            blockTag = TagKey.create(Registries.BLOCK, rl);
+                        }
+                    }
+                }
+                case ENTITY -> {
+                    ResourceLocation rl = ResourceLocation.tryParse(id);
+                    if (rl != null) entity = BuiltInRegistries.ENTITY_TYPE.getOptional(rl).orElse(null);
+                }
+                case EFFECT -> {
+                    ResourceLocation rl = ResourceLocation.tryParse(id);
+                    if (rl != null) effect = BuiltInRegistries.MOB_EFFECT.getHolder(rl).orElse(null);
+                }
+                case ADVANCEMENT -> advancement = ResourceLocation.tryParse(id);
+                case STAT -> stat = resolveStat(id);
+                default -> {}
+            }
+        } catch (Exception ignored) {}
+
+        this.item = item;
+        this.itemTag = itemTag;
+        this.blockTag = blockTag;
+        this.entity = entity;
+        this.effect = effect;
+        this.advancement = advancement;
+        this.stat = stat;
+        this.xpLevels = kind == Kind.XP && "levels".equals(QuestTracker.normalizeXpType(id));
+        this.fieldValue = id.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static CompiledTarget[] compile(QuestData.Quest q) {
+        if (q == null || q.completion == null || q.completion.targets == null) return new CompiledTarget[0];
+        return q.completion.targets.stream()
+                .filter(t -> t != null)
+                .map(t -> new CompiledTarget(q, t))
+                .toArray(CompiledTarget[]::new);
+    }
+
+    AdvancementHolder advancementHolder(ServerAdvancementManager manager) {
+        if (advancement == null || manager == null) return null;
+        if (manager != advancementManager) {
+            advancementHolder = manager.get(advancement);
+            advancementManager = manager;
+        }
+        return advancementHolder;
+    }
+
+    private static Kind kindOf(QuestData.Quest q, QuestData.Target t) {
+        if (t.isSubmit()) return Kind.SUBMIT;
+        if (t.isItem()) {
+            boolean submission = q.type != null
+                    && ("submission".equalsIgnoreCase(q.type) || "submit".equalsIgnoreCase(q.type));
+            return submission ? Kind.SUBMIT : Kind.ITEM;
+        }
+        if (t.isEntity()) return Kind.ENTITY;
+        if (t.isEffect()) return Kind.EFFECT;
+        if (t.isAdvancement()) return Kind.ADVANCEMENT;
+        if (t.isStat()) return Kind.STAT;
+        if (t.isXp()) return Kind.XP;
+        if (t.isLevelUpLevel()) return Kind.LEVELUP_LEVEL;
+        if (t.isFieldInput()) return Kind.FIELD;
+        return Kind.UNKNOWN;
+    }
+
+    static Stat<?> resolveStat(String statId) {
+        if (statId == null || statId.isBlank()) return null;
+        int first = statId.indexOf(':');
+        int second = statId.indexOf(':', first + 1);
+        boolean typed = second > first;
+        String type = typed ? statId.substring(0, first) : "custom";
+        ResourceLocation rl = ResourceLocation.tryParse(typed ? statId.substring(first + 1) : statId);
+        if (rl == null) return null;
+        return switch (type) {
+            case "custom" -> {
+                ResourceLocation key = BuiltInRegistries.CUSTOM_STAT.get(rl);
+                yield key == null ? null : Stats.CUSTOM.get(key);
+            }
+            case "mine_block" -> BuiltInRegistries.BLOCK.getOptional(rl).map(Stats.BLOCK_MINED::get).orElse(null);
+            case "use_item" -> BuiltInRegistries.ITEM.getOptional(rl).map(Stats.ITEM_USED::get).orElse(null);
+            case "kill_entity" -> BuiltInRegistries.ENTITY_TYPE.getOptional(rl).map(Stats.ENTITY_KILLED::get).orElse(null);
+            default -> null;
+        };
+    }
+}
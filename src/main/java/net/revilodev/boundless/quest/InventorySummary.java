@@ -0,0 +1,68 @@
+package net.revilodev.boundless.quest;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.item.BlockItem;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.block.Block;
+
+/**
+ * Item totals for one scan of a player inventory. Tag totals are computed from
+ * the item totals the first time they are asked for.
+ */
+final class InventorySummary {
+    private final Inventory inventory;
+    private final Reference2IntOpenHashMap<Item> counts = new Reference2IntOpenHashMap<>();
+    private final Object2IntOpenHashMap<TagKey<Item>> itemTagTotals = new Object2IntOpenHashMap<>();
+    private final Object2IntOpenHashMap<TagKey<Block>> blockTagTotals = new Object2IntOpenHashMap<>();
+
+    private InventorySummary(Inventory inventory) {
+        this.inventory = inventory;
+        itemTagTotals.defaultReturnValue(-1);
+        blockTagTotals.defaultReturnValue(-1);
+    }
+
+    static InventorySummary scan(Inventory inventory) {
+        InventorySummary summary = new InventorySummary(inventory);
+        int size = inventory.getContainerSize();
+        for (int i = 0; i < size; i++) {
+            ItemStack s = inventory.getItem(i);
+            if (!s.isEmpty()) summary.counts.addTo(s.getItem(), s.getCount());
+        }
+        return summary;
+    }
+
+    Inventory inventory() {
+        return inventory;
+    }
+
+    int count(Item item) {
+        return counts.getInt(item);
+    }
+
+    int countTag(TagKey<Item> tag) {
+        int cached = itemTagTotals.getInt(tag);
+        if (cached >= 0) return cached;
+        int total = 0;
+        for (Reference2IntMap.Entry<Item> e : counts.reference2IntEntrySet()) {
+            if (e.getKey().builtInRegistryHolder().is(tag)) total += e.getIntValue();
+        }
+        itemTagTotals.put(tag, total);
+        return total;
+    }
+
+    int countBlockTag(TagKey<Block> tag) {
+        int cached = blockTagTotals.getInt(tag);
+        if (cached >= 0) return cached;
+        int total = 0;
+        for (Reference2IntMap.Entry<Item> e : counts.reference2IntEntrySet()) {
+            if (e.getKey() instanceof BlockItem bi && bi.getBlock().builtInRegistryHolder().is(tag)) total += e.getIntValue();
+        }
+        blockTagTotals.put(tag, total);
+        return total;
+    }
+}
@@ -1,16 +1,25 @@
 package net.revilodev.boundless.quest;
 
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
 import net.minecraft.core.HolderLookup;
+import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.level.saveddata.SavedData;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 public final class KillCounterState extends SavedData {
-    private final Map<String, Map<String, Integer>> byPlayer = new HashMap<>();
+    // keyed by entity type registry id; entries whose type is no longer registered are kept as-is for saving
+    private final Map<UUID, Int2IntOpenHashMap> byPlayer = new HashMap<>();
+    private final Map<UUID, Map<String, Integer>> unresolved = new HashMap<>();
 
     public static KillCounterState get(ServerLevel level) {
         ServerLevel overworld = level.getServer().overworld();
@@ -26,42 +35,106 @@ public final class KillCounterState extends SavedData {
     public static KillCounterState load(CompoundTag tag, HolderLookup.Provider provider) {
         KillCounterState s = new KillCounterState();
         for (String player : tag.getAllKeys()) {
-            CompoundTag inner = tag.getCompound(player);
-            Map<String, Integer> m = new HashMap<>();
-            for (String k : inner.getAllKeys()) {
-                m.put(k, inner.getInt(k));
+            UUID uuid;
+            try {
+                uuid = UUID.fromString(player);
+            } catch (Exception ignored) {
+                continue;
             }
-            s.byPlayer.put(player, m);
+            s.loadPlayer(uuid, tag.getCompound(player));
+            PlayerDataShards.adopt(uuid);
+            s.setDirty();
         }
         return s;
     }
 
     public CompoundTag save(CompoundTag tag, HolderLookup.Provider provider) {
-        for (Map.Entry<String, Map<String, Integer>> e : byPlayer.entrySet()) {
-            CompoundTag inner = new CompoundTag();
-            for (Map.Entry<String, Integer> v : e.getValue().entrySet()) {
-                inner.putInt(v.getKey(), v.getValue());
-            }
-            tag.put(e.getKey(), inner);
+        PlayerDataShards.saveDirty();
+        Set<UUID> players = new HashSet<>(byPlayer.keySet());
+        players.addAll(unresolved.keySet());
+        for (UUID player : players) {
+            if (PlayerDataShards.isDirty(player)) tag.put(player.toString(), savePlayer(player));
         }
         return tag;
     }
 
-    public void inc(UUID player, String entityId) {
-        Map<String, Integer> m = byPlayer.computeIfAbsent(player.toString(), k -> new HashMap<>());
-        m.put(entityId, m.getOrDefault(entityId, 0) + 1);
+    void loadPlayer(UUID player, CompoundTag inner) {
+        for (String k : inner.getAllKeys()) {
+            int count = inner.getInt(k);
+            EntityType<?> type = resolve(k);
+            if (type != null) {
+                counts(player).addTo(BuiltInRegistries.ENTITY_TYPE.getId(type), count);
+            } else {
+                unresolved.computeIfAbsent(player, u -> new HashMap<>()).put(k, count);
+            }
+        }
+    }
+
+    CompoundTag savePlayer(UUID player) {
+        CompoundTag inner = new CompoundTag();
+        Map<String, Integer> extra = unresolved.get(player);
+        if (extra != null) extra.forEach(inner::putInt);
+        Int2IntOpenHashMap m = byPlayer.get(player);
+        if (m != null) {
+            for (Int2IntMap.Entry v : m.int2IntEntrySet()) {
+                EntityType<?> type = BuiltInRegistries.ENTITY_TYPE.byId(v.getIntKey());
+                inner.putInt(BuiltInRegistries.ENTITY_TYPE.getKey(type).toString(), v.getIntValue());
+            }
+        }
+        return inner;
+    }
+
+    void evict(UUID player) {
+        byPlayer.remove(player);
+        unresolved.remove(player);
+    }
+
+    public int inc(UUID player, EntityType<?> type) {
+        PlayerDataShards.touch(player);
+        int count = counts(player).addTo(BuiltInRegistries.ENTITY_TYPE.getId(type), 1) + 1;
+        PlayerDataShards.markDirty(player);
         setDirty();
+        return count;
+    }
+
+    public int get(UUID player, EntityType<?> type) {
+        PlayerDataShards.touch(player);
+        Int2IntOpenHashMap m = byPlayer.get(player);
+        if (m == null || type == null) return 0;
+        return m.get(BuiltInRegistries.ENTITY_TYPE.getId(type));
     }
 
     public int get(UUID player, String entityId) {
-        Map<String, Integer> m = byPlayer.get(player.toString());
-        if (m == null) return 0;
-        return m.getOrDefault(entityId, 0);
+        PlayerDataShards.touch(player);
+        EntityType<?> type = resolve(entityId);
+        if (type != null) return get(player, type);
+        Map<String, Integer> m = unresolved.get(player);
+        return m == null ? 0 : m.getOrDefault(entityId, 0);
     }
 
     public Map<String, Integer> snapshotFor(UUID player) {
-        Map<String, Integer> m = byPlayer.get(player.toString());
-        if (m == null) return Map.of();
-        return Map.copyOf(m);
+        PlayerDataShards.touch(player);
+        Int2IntOpenHashMap m = byPlayer.get(player);
+        Map<String, Integer> extra = unresolved.get(player);
+        if (m == null && extra == null) return Map.of();
+        Map<String, Integer> out = new HashMap<>();
+        if (extra != null) out.putAll(extra);
+        if (m != null) {
+            for (Int2IntMap.Entry v : m.int2IntEntrySet()) {
+                EntityType<?> type = BuiltInRegistries.ENTITY_TYPE.byId(v.getIntKey());
+                out.put(BuiltInRegistries.ENTITY_TYPE.getKey(type).toString(), v.getIntValue());
+            }
+        }
+        return Map.copyOf(out);
+    }
+
+    private Int2IntOpenHashMap counts(UUID player) {
+        return byPlayer.computeIfAbsent(player, k -> new Int2IntOpenHashMap());
+    }
+
+    private static EntityType<?> resolve(String entityId) {
+        ResourceLocation rl = entityId == null ? null : ResourceLocation.tryParse(entityId);
+        if (rl == null) return null;
+        return BuiltInRegistries.ENTITY_TYPE.getOptional(rl).orElse(null);
     }
 }
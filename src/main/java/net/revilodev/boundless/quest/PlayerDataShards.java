@@ -0,0 +1,238 @@
+package net.revilodev.boundless.quest;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.storage.LevelResource;
+import net.neoforged.neoforge.event.level.LevelEvent;
+import net.revilodev.boundless.BoundlessMod;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Per-player quest data files under {@code data/boundless/players/<uuid>.dat}. A player's
+ * progress, objectives and kills are loaded on first access and dropped again once they
+ * are offline and saved. The shared saved data only keeps players whose latest data has not
+ * been handed to the shard writer yet, which also covers data from before shards existed.
+ */
+public final class PlayerDataShards {
+    private PlayerDataShards() {}
+
+    private static final String TAG_PROGRESS = "progress";
+    private static final String TAG_OBJECTIVES = "objectives";
+    private static final String TAG_KILLS = "kills";
+
+    private static final long SHUTDOWN_FLUSH_SECONDS = 30L;
+
+    private static volatile MinecraftServer server;
+    private static final Set<UUID> RESIDENT = new HashSet<>();
+    private static final Set<UUID> DIRTY = new HashSet<>();
+    private static boolean loading;
+    // set by the first shared state to save in a world save, cleared once the overworld has saved
+    private static boolean passDone;
+
+    // snapshots taken on the server thread, written by one background thread; bursts share a single flush.
+    // segment is the oldest journal segment holding changes that are only durable once this snapshot is written
+    private record Pending(Path path, CompoundTag tag, int segment) {}
+    private static final Map<UUID, Pending> PENDING = new ConcurrentHashMap<>();
+    private static final AtomicBoolean FLUSH_QUEUED = new AtomicBoolean();
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Boundless Player Data Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static void attach(MinecraftServer s) {
+        server = s;
+        passDone = false;
+        // load the shared saved data up front so any pre-shard data is adopted before shards are read
+        ServerLevel overworld = s.overworld();
+        QuestProgressState progress = QuestProgressState.get(overworld);
+        QuestObjectiveState objectives = QuestObjectiveState.get(overworld);
+        KillCounterState.get(overworld);
+        ProgressJournal.open(dataRoot().resolve("journal"), progress, objectives);
+        if (!DIRTY.isEmpty()) markStatesDirty();
+    }
+
+    public static void detach() {
+        try {
+            WRITER.submit(PlayerDataShards::flushPending).get(SHUTDOWN_FLUSH_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            BoundlessMod.LOGGER.error("[Boundless] Timed out writing player quest data", e);
+        }
+        // unwritten snapshots are kept; the next save in this session retries them and touch() still reads them
+        if (!PENDING.isEmpty()) {
+            BoundlessMod.LOGGER.error("[Boundless] {} player quest data files could not be written yet", PENDING.size());
+        }
+        ProgressJournal.close();
+        server = null;
+        RESIDENT.clear();
+        DIRTY.clear();
+    }
+
+    /** Called for players found in the shared saved data; they are written to shards on the next save. */
+    static void adopt(UUID player) {
+        RESIDENT.add(player);
+        DIRTY.add(player);
+    }
+
+    // the three shared states are kept dirty together, so they all save in the same world save and the
+    // first of them to do so runs the shard pass before any of them is written
+    static void markDirty(UUID player) {
+        if (DIRTY.add(player)) markStatesDirty();
+    }
+
+    private static void markStatesDirty() {
+        if (server == null) return;
+        ServerLevel overworld = server.overworld();
+        QuestProgressState.get(overworld).setDirty();
+        QuestObjectiveState.get(overworld).setDirty();
+        KillCounterState.get(overworld).setDirty();
+    }
+
+    static boolean isDirty(UUID player) {
+        return DIRTY.contains(player);
+    }
+
+    /** Makes sure the player's shard is loaded before their data is read or written. */
+    static void touch(UUID player) {
+        if (player == null || loading || server == null || !RESIDENT.add(player)) return;
+        Path path = shardPath(player);
+        Pending pending = PENDING.get(player);
+        if (pending != null && !pending.path().equals(path)) pending = null;
+        if (pending == null && !Files.exists(path)) return;
+        loading = true;
+        try {
+            CompoundTag tag = pending != null ? pending.tag() : NbtIo.readCompressed(path, NbtAccounter.unlimitedHeap());
+            ServerLevel overworld = server.overworld();
+            QuestProgressState.get(overworld).loadPlayer(player, tag.getCompound(TAG_PROGRESS));
+            QuestObjectiveState.get(overworld).loadPlayer(player, tag.getCompound(TAG_OBJECTIVES));
+            KillCounterState.get(overworld).loadPlayer(player, tag.getCompound(TAG_KILLS));
+        } catch (Exception e) {
+            BoundlessMod.LOGGER.error("[Boundless] Failed to read quest data for {}", player, e);
+        } finally {
+            loading = false;
+        }
+    }
+
+    /**
+     * Writes every changed shard and drops players that are no longer online. Each shared state calls this
+     * before writing itself; only the first call in a world save does anything.
+     */
+    static void saveDirty() {
+        if (server == null || passDone) return;
+        passDone = true;
+        int sealed = ProgressJournal.seal();
+        Path journal = ProgressJournal.directory();
+        List<UUID> saved = new ArrayList<>(DIRTY);
+        for (UUID player : saved) save(player, sealed);
+        WRITER.execute(() -> discardJournal(journal, sealed));
+        List<UUID> offline = new ArrayList<>();
+        for (UUID player : RESIDENT) {
+            if (server.getPlayerList().getPlayer(player) == null) offline.add(player);
+        }
+        for (UUID player : offline) evict(player);
+    }
+
+    public static void onLevelSave(LevelEvent.Save event) {
+        if (event.getLevel() instanceof ServerLevel level && level.dimension() == Level.OVERWORLD) passDone = false;
+    }
+
+    public static void unload(ServerPlayer sp) {
+        if (server == null) return;
+        UUID player = sp.getUUID();
+        if (DIRTY.contains(player)) save(player, ProgressJournal.segment());
+        evict(player);
+    }
+
+    private static void save(UUID player, int segment) {
+        ServerLevel overworld = server.overworld();
+        CompoundTag tag = new CompoundTag();
+        tag.put(TAG_PROGRESS, QuestProgressState.get(overworld).savePlayer(player));
+        tag.put(TAG_OBJECTIVES, QuestObjectiveState.get(overworld).savePlayer(player));
+        tag.put(TAG_KILLS, KillCounterState.get(overworld).savePlayer(player));
+        // a snapshot replacing an unwritten one still depends on the older one's segments
+        PENDING.merge(player, new Pending(shardPath(player), tag, segment),
+                (old, next) -> new Pending(next.path(), next.tag(), Math.min(old.segment(), next.segment())));
+        DIRTY.remove(player);
+        if (FLUSH_QUEUED.compareAndSet(false, true)) WRITER.execute(PlayerDataShards::flushPending);
+    }
+
+    // failed writes stay pending and are retried by the next flush; the player is marked dirty again so the
+    // shared saved data keeps a copy until a write lands
+    private static void flushPending() {
+        FLUSH_QUEUED.set(false);
+        for (Map.Entry<UUID, Pending> e : PENDING.entrySet()) {
+            Pending pending = e.getValue();
+            try {
+                write(pending.path(), pending.tag());
+                PENDING.remove(e.getKey(), pending);
+            } catch (Exception ex) {
+                BoundlessMod.LOGGER.error("[Boundless] Failed to write quest data for {}", e.getKey(), ex);
+                MinecraftServer s = server;
+                UUID player = e.getKey();
+                if (s != null) s.execute(() -> {
+                    if (server != s) return;
+                    // an evicted player is read back from the pending snapshot first
+                    touch(player);
+                    markDirty(player);
+                });
+            }
+        }
+    }
+
+    // runs on the writer after the flush for the save that sealed up to this segment; anything an unwritten
+    // snapshot still depends on is kept
+    private static void discardJournal(Path journal, int sealed) {
+        int upTo = sealed;
+        for (Pending pending : PENDING.values()) upTo = Math.min(upTo, pending.segment() - 1);
+        ProgressJournal.discardUpTo(journal, upTo);
+    }
+
+    private static void write(Path path, CompoundTag tag) throws IOException {
+        Files.createDirectories(path.getParent());
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        NbtIo.writeCompressed(tag, tmp);
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void evict(UUID player) {
+        if (DIRTY.contains(player)) return;
+        ServerLevel overworld = server.overworld();
+        QuestProgressState.get(overworld).evict(player);
+        QuestObjectiveState.get(overworld).evict(player);
+        KillCounterState.get(overworld).evict(player);
+        RESIDENT.remove(player);
+    }
+
+    private static Path dataRoot() {
+        return server.getWorldPath(LevelResource.ROOT).resolve("data").resolve("boundless");
+    }
+
+    private static Path shardPath(UUID player) {
+        return dataRoot().resolve("players").resolve(player + ".dat");
+    }
+}
@@ -0,0 +1,162 @@
+package net.revilodev.boundless.quest;
+
+import net.revilodev.boundless.BoundlessMod;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Append-only log of quest progress changes. Every record carries the new absolute value,
+ * so replaying a segment that was already saved is harmless. Segments are sealed at each
+ * save and deleted once the shard writes for that save have landed. Objective clears are
+ * logged too, so a replay can drop latched progress a reward was already paid for; progress
+ * latched after a clear is not logged and may have to be earned again after a crash.
+ */
+final class ProgressJournal {
+    private ProgressJournal() {}
+
+    static final int OP_STATUS = 1;
+    static final int OP_CLAIMS = 2;
+    static final int OP_SCROLL_REDEEMED = 3;
+    static final int OP_SCROLL_CREATED = 4;
+    static final int OP_CLEAR = 5;
+    static final int OP_CLEAR_OBJECTIVES = 6;
+    static final int OP_CLEAR_QUEST_OBJECTIVES = 7;
+
+    private static final String SUFFIX = ".log";
+
+    private static Path dir;
+    private static DataOutputStream out;
+    private static int segment;
+
+    static void open(Path directory, QuestProgressState progress, QuestObjectiveState objectives) {
+        close();
+        dir = directory;
+        List<Integer> segments = listSegments(directory);
+        int replayed = 0;
+        for (int seg : segments) replayed += replay(segmentPath(directory, seg), progress, objectives);
+        segment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+        openSegment(segment + 1);
+        if (replayed > 0) BoundlessMod.LOGGER.info("[Boundless] Replayed {} quest progress changes from the journal", replayed);
+    }
+
+    static void close() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException ignored) {}
+        }
+        out = null;
+        dir = null;
+    }
+
+    static Path directory() {
+        return dir;
+    }
+
+    static void record(int op, UUID player, String questId, int value) {
+        if (out == null) return;
+        try {
+            out.writeByte(op);
+            out.writeLong(player.getMostSignificantBits());
+            out.writeLong(player.getLeastSignificantBits());
+            out.writeUTF(questId == null ? "" : questId);
+            out.writeInt(value);
+            out.flush();
+        } catch (IOException e) {
+            BoundlessMod.LOGGER.error("[Boundless] Failed to append to the quest progress journal", e);
+        }
+    }
+
+    /** The segment new records go to, or -1 when no journal is open. */
+    static int segment() {
+        return dir == null ? -1 : segment;
+    }
+
+    /** Starts a new segment and returns the last one that the current save covers. */
+    static int seal() {
+        if (dir == null) return -1;
+        int sealed = segment;
+        openSegment(segment + 1);
+        return sealed;
+    }
+
+    /** Deletes every segment up to and including {@code sealed}; safe to call off the server thread. */
+    static void discardUpTo(Path directory, int sealed) {
+        if (directory == null || sealed < 0) return;
+        for (int seg : listSegments(directory)) {
+            if (seg > sealed) break;
+            try {
+                Files.deleteIfExists(segmentPath(directory, seg));
+            } catch (IOException ignored) {}
+        }
+    }
+
+    private static void openSegment(int seg) {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException ignored) {}
+            out = null;
+        }
+        segment = seg;
+        try {
+            Files.createDirectories(dir);
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(segmentPath(dir, seg),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        } catch (IOException e) {
+            BoundlessMod.LOGGER.error("[Boundless] Failed to open the quest progress journal", e);
+        }
+    }
+
+    private static int replay(Path path, QuestProgressState progress, QuestObjectiveState objectives) {
+        int count = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                int op = in.readByte();
+                UUID player = new UUID(in.readLong(), in.readLong());
+                String questId = in.readUTF();
+                int value = in.readInt();
+                if (op == OP_CLEAR_OBJECTIVES || op == OP_CLEAR_QUEST_OBJECTIVES) objectives.replay(op, player, questId);
+                else progress.replay(op, player, questId, value);
+                count++;
+            }
+        } catch (EOFException ignored) {
+            // end of segment, or a record cut short by a crash
+        } catch (IOException e) {
+            BoundlessMod.LOGGER.error("[Boundless] Failed to read quest progress journal {}", path, e);
+        }
+        return count;
+    }
+
+    private static List<Integer> listSegments(Path directory) {
+        List<Integer> out = new ArrayList<>();
+        if (!Files.isDirectory(directory)) return out;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    out.add(Integer.parseInt(name.substring(0, name.length() - SUFFIX.length())));
+                } catch (NumberFormatException ignored) {}
+            }
+        } catch (IOException ignored) {}
+        Collections.sort(out);
+        return out;
+    }
+
+    private static Path segmentPath(Path directory, int seg) {
+        return directory.resolve(seg + SUFFIX);
+    }
+}
@@ -1,36 +1,37 @@
 package net.revilodev.boundless.quest;
 
 import com.google.gson.*;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import net.minecraft.client.Minecraft;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.MinecraftServer;
-import net.minecraft.server.packs.PackType;
-import net.minecraft.server.packs.PackResources;
-import net.minecraft.server.packs.resources.IoSupplier;
 import net.minecraft.server.packs.resources.Resource;
 import net.minecraft.server.packs.resources.ResourceManager;
 import net.minecraft.util.GsonHelper;
 import net.minecraft.world.item.Item;
 import net.neoforged.api.distmarker.Dist;
+import net.neoforged.neoforge.event.TagsUpdatedEvent;
 import net.neoforged.fml.loading.FMLEnvironment;
 import net.neoforged.fml.loading.FMLPaths;
+import net.revilodev.boundless.BoundlessMod;
 import net.revilodev.boundless.Config;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Consumer;
 
 public final class QuestData {
     private QuestData() {}
 
-    private static final Gson GSON = new GsonBuilder().setLenient().create();
     private static final String PATH_QUESTS = "quests";
     private static final String PATH_CATEGORIES = "quests/categories";
     private static final String PATH_SUBCATEGORIES = "quests/subcategories";
@@ -40,13 +41,28 @@ public final class QuestData {
     private static final Path INSTANCE_QUEST_PACKS_ROOT =
             FMLPaths.GAMEDIR.get().resolve("config").resolve("boundless").resolve("questpacks");
 
-    private static final Map<String, Quest> QUESTS = new LinkedHashMap<>();
-    private static final Map<String, Category> CATEGORIES = new LinkedHashMap<>();
-    private static final Map<String, SubCategory> SUBCATEGORIES = new LinkedHashMap<>();
-    private static boolean loadedClient = false;
-    private static boolean loadedServer = false;
-
-    private static String lastWorldId = null;
+    private static final Gson GSON = new GsonBuilder().setLenient().create();
+    private static final int LOADER_PARALLELISM =
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    private static final ForkJoinPool.ForkJoinWorkerThreadFactory LOADER_THREADS = pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("Boundless Quest Loader " + thread.getPoolIndex());
+        thread.setContextClassLoader(QuestData.class.getClassLoader());
+        return thread;
+    };
+
+    // the client and the (possibly integrated) server each keep their own catalogue, so loading one never
+    // replaces what the other is reading
+    private static final Side CLIENT = new Side();
+    private static final Side SERVER = new Side();
+    private static int lastCatalogueVersion = 0;
+
+    // quest id -> dense int, stable for the lifetime of the game so stored progress survives reloads
+    private static final Object2IntOpenHashMap<String> QUEST_INDEX = new Object2IntOpenHashMap<>();
+    private static final List<String> QUEST_INDEX_IDS = new ArrayList<>();
+    static {
+        QUEST_INDEX.defaultReturnValue(-1);
+    }
 
     public static final class Quest {
         public final String id;
@@ -299,6 +315,93 @@ public final class QuestData {
         }
     }
 
+    /** Everything one load produced. Never modified after it is published. */
+    private static final class Catalogue {
+        static final Catalogue EMPTY = new Catalogue(Map.of(), Map.of(), Map.of(), 0,
+                QuestTargetIndex.EMPTY, Map.of(), QuestDependencyGraph.EMPTY);
+
+        final Map<String, Quest> quests;
+        final Map<String, Category> categories;
+        final Map<String, SubCategory> subCategories;
+        final int version;
+        final QuestTargetIndex targetIndex;
+        final Map<Quest, CompiledTarget[]> compiledTargets;
+        final QuestDependencyGraph dependencyGraph;
+        // ordered views the UI asks for every frame, built once per catalogue
+        final List<Category> orderedCategories;
+        final List<SubCategory> orderedSubCategories;
+        final Map<String, List<SubCategory>> subCategoriesByCategory;
+
+        private Catalogue(Map<String, Quest> quests, Map<String, Category> categories,
+                          Map<String, SubCategory> subCategories, int version, QuestTargetIndex targetIndex,
+                          Map<Quest, CompiledTarget[]> compiledTargets, QuestDependencyGraph dependencyGraph) {
+            this.quests = quests;
+            this.categories = categories;
+            this.subCategories = subCategories;
+            this.version = version;
+            this.targetIndex = targetIndex;
+            this.compiledTargets = compiledTargets;
+            this.dependencyGraph = dependencyGraph;
+            this.orderedCategories = List.copyOf(orderedCategories(categories.values()));
+            this.orderedSubCategories = List.copyOf(buildSubCategoryList(quests, subCategories));
+            Map<String, List<SubCategory>> byCategory = new HashMap<>();
+            for (SubCategory sc : orderedSubCategories) {
+                byCategory.computeIfAbsent(sc.category.toLowerCase(Locale.ROOT), k -> new ArrayList<>()).add(sc);
+            }
+            byCategory.replaceAll((k, v) -> List.copyOf(v));
+            this.subCategoriesByCategory = Collections.unmodifiableMap(byCategory);
+        }
+
+        List<SubCategory> subCategoriesFor(String categoryId) {
+            if (categoryId == null) return List.of();
+            return subCategoriesByCategory.getOrDefault(categoryId.toLowerCase(Locale.ROOT), List.of());
+        }
+
+        static Catalogue build(Builder b, int version) {
+            b.categories.putIfAbsent("all", new Category("all", "minecraft:book", "All",
+                    Integer.MIN_VALUE, false, "", false));
+            ensureSubCategoriesFromQuests(b);
+            Map<String, Quest> quests = Collections.unmodifiableMap(new LinkedHashMap<>(b.quests));
+            return new Catalogue(quests,
+                    Collections.unmodifiableMap(new LinkedHashMap<>(b.categories)),
+                    Collections.unmodifiableMap(new LinkedHashMap<>(b.subCategories)),
+                    version,
+                    QuestTargetIndex.build(quests.values()),
+                    compileTargets(quests.values()),
+                    QuestDependencyGraph.build(quests.values()));
+        }
+
+        // item and block tags can change without the quests changing
+        Catalogue retargeted() {
+            return new Catalogue(quests, categories, subCategories, version,
+                    QuestTargetIndex.build(quests.values()), compileTargets(quests.values()), dependencyGraph);
+        }
+
+        private static Map<Quest, CompiledTarget[]> compileTargets(Collection<Quest> quests) {
+            Map<Quest, CompiledTarget[]> compiled = new IdentityHashMap<>();
+            for (Quest q : quests) compiled.put(q, CompiledTarget.compile(q));
+            return Collections.unmodifiableMap(compiled);
+        }
+    }
+
+    /** Collects a load in progress; only the loading thread touches it. */
+    private static final class Builder {
+        final Map<String, Quest> quests = new LinkedHashMap<>();
+        final Map<String, Category> categories = new LinkedHashMap<>();
+        final Map<String, SubCategory> subCategories = new LinkedHashMap<>();
+    }
+
+    /** One side's published catalogue; loads build a new one off to the side and swap it in, readers never lock. */
+    private static final class Side {
+        volatile Catalogue catalogue = Catalogue.EMPTY;
+        volatile boolean loaded;
+        String lastWorldId;
+    }
+
+    private static void publish(Side side, Builder b) {
+        side.catalogue = Catalogue.build(b, ++lastCatalogueVersion);
+    }
+
     private static boolean isQuestDisabled(Quest q) {
         return Config.disabledCategories().contains(q.category);
     }
@@ -357,18 +460,19 @@ public final class QuestData {
     }
 
     public static void forceReloadAll(MinecraftServer server) {
-        loadedClient = false;
-        loadedServer = false;
-        lastWorldId = null;
+        SERVER.loaded = false;
+        SERVER.lastWorldId = null;
         loadServer(server, true);
     }
 
-    private static synchronized void load(ResourceManager rm, boolean forceReload) {
-        if ((loadedClient || loadedServer) && !forceReload && !QUESTS.isEmpty()) return;
+    private static synchronized void load(Side side, ResourceManager rm, boolean forceReload) {
+        if (side.loaded && !forceReload && !side.catalogue.quests.isEmpty()) return;
 
-        QUESTS.clear();
-        CATEGORIES.clear();
-        SUBCATEGORIES.clear();
+        long start = System.nanoTime();
+        Builder builder = new Builder();
+
+        // files are parsed in parallel but applied in this order, so later packs still override earlier ones
+        List<ParseJob> jobs = new ArrayList<>();
 
         Map<ResourceLocation, List<Resource>> catStacks =
                 rm.listResourceStacks(PATH_CATEGORIES, rl -> rl.getPath().endsWith(".json"));
@@ -379,29 +483,16 @@ public final class QuestData {
             if (stack == null || stack.isEmpty()) continue;
 
             Resource top = stack.get(stack.size() - 1);
-            try (Reader raw = top.openAsReader(); Reader reader = new BufferedReader(raw)) {
-                JsonObject obj = safeObject(reader);
-                if (obj == null) continue;
-
-                String id = optString(obj, "id");
-                if (id == null || id.isBlank()) continue;
-
-                String icon = optString(obj, "icon");
-                String cname = optString(obj, "name");
-                int order = parseIntFlexible(obj, "order", 0);
-                boolean excludeFromAll = parseBoolFlexible(obj, "exclude_from_all", false);
-                String dependency = optString(obj, "dependency");
-                boolean autoComplete = parseBoolFlexible(obj, "auto_complete",
-                        parseBoolFlexible(obj, "autoComplete", false));
-
-                CATEGORIES.put(id, new Category(id, icon, cname, order, excludeFromAll, dependency, autoComplete));
-            } catch (Exception ignored) {}
+            jobs.add(() -> {
+                JsonObject obj = readObject(top);
+                return obj == null ? null : b -> readCategoryObject(obj, b);
+            });
         }
 
-        loadSubCategoriesFromManager(rm, PATH_SUBCATEGORIES);
-        loadSubCategoriesFromManager(rm, PATH_SUBCATEGORIES_ALT);
-        loadSubCategoriesFromManager(rm, PATH_SUBCATEGORY);
-        loadSubCategoriesFromManager(rm, PATH_SUBCATEGORY_ALT);
+        addSubCategoryJobs(rm, PATH_SUBCATEGORIES, jobs);
+        addSubCategoryJobs(rm, PATH_SUBCATEGORIES_ALT, jobs);
+        addSubCategoryJobs(rm, PATH_SUBCATEGORY, jobs);
+        addSubCategoryJobs(rm, PATH_SUBCATEGORY_ALT, jobs);
 
         Map<ResourceLocation, List<Resource>> questStacks =
                 rm.listResourceStacks(PATH_QUESTS, rl -> rl.getPath().endsWith(".json"));
@@ -418,33 +509,93 @@ public final class QuestData {
             if (stack == null || stack.isEmpty()) continue;
 
             Resource top = stack.get(stack.size() - 1);
-            try (Reader raw = top.openAsReader(); Reader reader = new BufferedReader(raw)) {
-                JsonObject obj = safeObject(reader);
-                if (obj == null) continue;
+            jobs.add(() -> {
+                JsonObject obj = readObject(top);
+                return obj == null ? null : questJob(parseQuestObject(obj, loc));
+            });
+        }
+
+        addModQuestPackJobs(jobs);
+
+        runJobs(jobs, builder);
+        publish(side, builder);
+
+        Catalogue c = side.catalogue;
+        BoundlessMod.LOGGER.info("[Boundless] Loaded {} quests, {} categories and {} subcategories from {} files in {} ms ({})",
+                c.quests.size(), c.categories.size(), c.subCategories.size(), jobs.size(),
+                (System.nanoTime() - start) / 1_000_000L, side == SERVER ? "server" : "client");
+    }
+
+    /** Reads and parses one file off the calling thread; the returned action (if any) is applied in order. */
+    private interface ParseJob {
+        Consumer<Builder> parse() throws Exception;
+    }
+
+    private static void runJobs(List<ParseJob> jobs, Builder builder) {
+        List<Consumer<Builder>> parsed;
+        if (LOADER_PARALLELISM <= 1 || jobs.size() < 2) {
+            parsed = jobs.stream().map(QuestData::parseQuietly).toList();
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(LOADER_PARALLELISM, LOADER_THREADS, null, false);
+            try {
+                parsed = pool.submit(() -> jobs.parallelStream().map(QuestData::parseQuietly).toList()).join();
+            } finally {
+                pool.shutdown();
+            }
+        }
+        for (Consumer<Builder> apply : parsed) {
+            if (apply != null) apply.accept(builder);
+        }
+    }
 
-                Quest q = parseQuestObject(obj, loc);
-                if (q != null && !isQuestDisabled(q)) QUESTS.put(q.id, q);
-            } catch (Exception ignored) {}
+    private static Consumer<Builder> parseQuietly(ParseJob job) {
+        try {
+            return job.parse();
+        } catch (Exception ignored) {
+            return null;
         }
+    }
 
-        loadModQuestPacksFromInstance();
+    private static Consumer<Builder> questJob(Quest q) {
+        if (q == null || isQuestDisabled(q)) return null;
+        return b -> b.quests.put(q.id, q);
+    }
 
-        ensureSubCategoriesFromQuests();
+    private static JsonObject readObject(Resource resource) throws IOException {
+        try (Reader raw = resource.openAsReader(); Reader reader = new BufferedReader(raw)) {
+            return safeObject(reader);
+        }
+    }
 
-        if (!CATEGORIES.containsKey("all")) {
-            CATEGORIES.put("all", new Category("all", "minecraft:book", "All",
-                    Integer.MIN_VALUE, false, "", false));
+    private static JsonObject readObject(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return safeObject(reader);
         }
     }
 
-    private static void loadModQuestPacksFromInstance() {
+    private static void readCategoryObject(JsonObject obj, Builder b) {
+        String id = optString(obj, "id");
+        if (id == null || id.isBlank()) return;
+
+        String icon = optString(obj, "icon");
+        String cname = optString(obj, "name");
+        int order = parseIntFlexible(obj, "order", 0);
+        boolean excludeFromAll = parseBoolFlexible(obj, "exclude_from_all", false);
+        String dependency = optString(obj, "dependency");
+        boolean autoComplete = parseBoolFlexible(obj, "auto_complete",
+                parseBoolFlexible(obj, "autoComplete", false));
+
+        b.categories.put(id, new Category(id, icon, cname, order, excludeFromAll, dependency, autoComplete));
+    }
+
+    private static void addModQuestPackJobs(List<ParseJob> jobs) {
         if (!Files.isDirectory(INSTANCE_QUEST_PACKS_ROOT)) return;
 
         try (DirectoryStream<Path> packs = Files.newDirectoryStream(INSTANCE_QUEST_PACKS_ROOT)) {
             for (Path packRoot : packs) {
                 if (!Files.isDirectory(packRoot)) continue;
                 if (!isInstancePackEnabled(packRoot)) continue;
-                loadModQuestPackData(packRoot);
+                addModQuestPackDataJobs(packRoot, jobs);
             }
         } catch (Exception ignored) {
         }
@@ -475,7 +626,7 @@ public final class QuestData {
         }
     }
 
-    private static void loadModQuestPackData(Path packRoot) {
+    private static void addModQuestPackDataJobs(Path packRoot, List<ParseJob> jobs) {
         Path dataRoot = packRoot.resolve("data");
         if (!Files.isDirectory(dataRoot)) return;
 
@@ -488,58 +639,45 @@ public final class QuestData {
                 Path questsRoot = namespaceDir.resolve("quests");
                 if (!Files.isDirectory(questsRoot)) continue;
 
-                loadCategoriesFromPath(questsRoot.resolve("categories"), ns);
-                loadSubCategoriesFromPath(questsRoot.resolve("subcategories"), ns);
-                loadSubCategoriesFromPath(questsRoot.resolve("sub_category"), ns);
-                loadSubCategoriesFromPath(questsRoot.resolve("subcategory"), ns);
-                loadSubCategoriesFromPath(questsRoot.resolve("sub-category"), ns);
-                loadQuestsFromPath(questsRoot, ns);
+                addCategoryJobs(questsRoot.resolve("categories"), jobs);
+                addSubCategoryJobs(questsRoot.resolve("subcategories"), jobs);
+                addSubCategoryJobs(questsRoot.resolve("sub_category"), jobs);
+                addSubCategoryJobs(questsRoot.resolve("subcategory"), jobs);
+                addSubCategoryJobs(questsRoot.resolve("sub-category"), jobs);
+                addQuestJobs(questsRoot, ns, jobs);
             }
         } catch (Exception ignored) {
         }
     }
 
-    private static void loadCategoriesFromPath(Path categoriesDir, String namespace) {
+    private static void addCategoryJobs(Path categoriesDir, List<ParseJob> jobs) {
         if (!Files.isDirectory(categoriesDir)) return;
         try (DirectoryStream<Path> files = Files.newDirectoryStream(categoriesDir, "*.json")) {
             for (Path file : files) {
-                try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
-                    JsonObject obj = safeObject(reader);
-                    if (obj == null) continue;
-                    String id = optString(obj, "id");
-                    if (id == null || id.isBlank()) continue;
-                    String icon = optString(obj, "icon");
-                    String cname = optString(obj, "name");
-                    int order = parseIntFlexible(obj, "order", 0);
-                    boolean excludeFromAll = parseBoolFlexible(obj, "exclude_from_all", false);
-                    String dependency = optString(obj, "dependency");
-                    boolean autoComplete = parseBoolFlexible(obj, "auto_complete",
-                            parseBoolFlexible(obj, "autoComplete", false));
-                    CATEGORIES.put(id, new Category(id, icon, cname, order, excludeFromAll, dependency, autoComplete));
-                } catch (Exception ignored) {
-                }
+                jobs.add(() -> {
+                    JsonObject obj = readObject(file);
+                    return obj == null ? null : b -> readCategoryObject(obj, b);
+                });
             }
         } catch (Exception ignored) {
         }
     }
 
-    private static void loadSubCategoriesFromPath(Path subDir, String namespace) {
+    private static void addSubCategoryJobs(Path subDir, List<ParseJob> jobs) {
         if (!Files.isDirectory(subDir)) return;
         try (DirectoryStream<Path> files = Files.newDirectoryStream(subDir, "*.json")) {
             for (Path file : files) {
-                try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
-                    JsonObject obj = safeObject(reader);
-                    if (obj == null) continue;
-                    String relPath = "quests/" + subDir.getFileName() + "/" + file.getFileName();
-                    readSubCategoryObject(obj, relPath);
-                } catch (Exception ignored) {
-                }
+                String relPath = "quests/" + subDir.getFileName() + "/" + file.getFileName();
+                jobs.add(() -> {
+                    JsonObject obj = readObject(file);
+                    return obj == null ? null : b -> readSubCategoryObject(obj, relPath, b);
+                });
             }
         } catch (Exception ignored) {
         }
     }
 
-    private static void loadQuestsFromPath(Path questsRoot, String namespace) {
+    private static void addQuestJobs(Path questsRoot, String namespace, List<ParseJob> jobs) {
         if (!Files.isDirectory(questsRoot)) return;
         try (var stream = Files.walk(questsRoot)) {
             stream.filter(Files::isRegularFile)
@@ -551,12 +689,10 @@ public final class QuestData {
                             if (isSubCategoryPath("quests/" + rel)) return;
                             ResourceLocation loc = ResourceLocation.fromNamespaceAndPath(namespace, "quests/" + rel);
                             if (shouldIgnoreQuestJson(loc)) return;
-                            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
-                                JsonObject obj = safeObject(reader);
-                                if (obj == null) return;
-                                Quest q = parseQuestObject(obj, loc);
-                                if (q != null && !isQuestDisabled(q)) QUESTS.put(q.id, q);
-                            }
+                            jobs.add(() -> {
+                                JsonObject obj = readObject(path);
+                                return obj == null ? null : questJob(parseQuestObject(obj, loc));
+                            });
                         } catch (Exception ignored) {
                         }
                     });
@@ -564,33 +700,7 @@ public final class QuestData {
         }
     }
 
-    private static int listDataCategoriesFromPack(PackResources res, String ns) {
-        final int[] count = {0};
-        res.listResources(PackType.SERVER_DATA, ns, PATH_CATEGORIES, (loc, supplier) -> {
-            if (!loc.getPath().endsWith(".json")) return;
-            try (Reader r = supplierToReader(supplier)) {
-                JsonObject obj = safeObject(r);
-                if (obj == null) return;
-
-                String id = optString(obj, "id");
-                if (id == null || id.isBlank()) return;
-
-                String icon = optString(obj, "icon");
-                String cname = optString(obj, "name");
-                int order = parseIntFlexible(obj, "order", 0);
-                boolean excludeFromAll = parseBoolFlexible(obj, "exclude_from_all", false);
-                String dependency = optString(obj, "dependency");
-                boolean autoComplete = parseBoolFlexible(obj, "auto_complete",
-                        parseBoolFlexible(obj, "autoComplete", false));
-
-                CATEGORIES.put(id, new Category(id, icon, cname, order, excludeFromAll, dependency, autoComplete));
-                count[0]++;
-            } catch (Exception ignored) {}
-        });
-        return count[0];
-    }
-
-    private static void loadSubCategoriesFromManager(ResourceManager rm, String path) {
+    private static void addSubCategoryJobs(ResourceManager rm, String path, List<ParseJob> jobs) {
         Map<ResourceLocation, List<Resource>> subStacks =
                 rm.listResourceStacks(path, rl -> rl.getPath().endsWith(".json"));
 
@@ -601,30 +711,17 @@ public final class QuestData {
             if (stack == null || stack.isEmpty()) continue;
 
             Resource top = stack.get(stack.size() - 1);
-            try (Reader raw = top.openAsReader(); Reader reader = new BufferedReader(raw)) {
-                JsonObject obj = safeObject(reader);
-                if (obj == null) continue;
-                readSubCategoryObject(obj, loc == null ? "" : loc.getPath());
-            } catch (Exception ignored) {}
-        }
-    }
-
-    private static int listDataSubCategoriesFromPack(PackResources res, String ns, String path) {
-        final int[] count = {0};
-        res.listResources(PackType.SERVER_DATA, ns, path, (loc, supplier) -> {
-            if (!loc.getPath().endsWith(".json")) return;
-            try (Reader r = supplierToReader(supplier)) {
-                JsonObject obj = safeObject(r);
-                if (obj == null) return;
-                if (readSubCategoryObject(obj, loc.getPath())) count[0]++;
-            } catch (Exception ignored) {}
-        });
-        return count[0];
+            String sourcePath = loc == null ? "" : loc.getPath();
+            jobs.add(() -> {
+                JsonObject obj = readObject(top);
+                return obj == null ? null : b -> readSubCategoryObject(obj, sourcePath, b);
+            });
+        }
     }
 
-    private static boolean readSubCategoryObject(JsonObject obj, String sourcePath) {
+    private static void readSubCategoryObject(JsonObject obj, String sourcePath, Builder b) {
         String id = optString(obj, "id");
-        if (id == null || id.isBlank()) return false;
+        if (id == null || id.isBlank()) return;
 
         String cat = optString(obj, "category");
         if (cat == null) cat = "";
@@ -638,35 +735,11 @@ public final class QuestData {
         }
 
         String key = subKey(cat, id);
-        SUBCATEGORIES.put(key, new SubCategory(id, cat, icon, name, order, defaultOpen, List.of(), sourcePath));
-        return true;
+        b.subCategories.put(key, new SubCategory(id, cat, icon, name, order, defaultOpen, List.of(), sourcePath));
     }
 
-    private static int listDataQuestsFromPack(PackResources res, String ns) {
-        final int[] count = {0};
-        res.listResources(PackType.SERVER_DATA, ns, PATH_QUESTS, (loc, supplier) -> {
-            if (!loc.getPath().endsWith(".json")) return;
-            String path = loc.getPath();
-            if (path.contains("/categories/")) return;
-            if (isSubCategoryPath(path)) return;
-            if (shouldIgnoreQuestJson(loc)) return;
-
-            try (Reader r = supplierToReader(supplier)) {
-                JsonObject obj = safeObject(r);
-                if (obj == null) return;
-
-                Quest q = parseQuestObject(obj, loc);
-                if (q != null && !isQuestDisabled(q)) {
-                    QUESTS.put(q.id, q);
-                    count[0]++;
-                }
-            } catch (Exception ignored) {}
-        });
-        return count[0];
-    }
-
-    private static void ensureSubCategoriesFromQuests() {
-        for (Quest q : QUESTS.values()) {
+    private static void ensureSubCategoriesFromQuests(Builder b) {
+        for (Quest q : b.quests.values()) {
             if (q == null || q.subCategory == null || q.subCategory.isBlank()) continue;
 
             String cat = q.category;
@@ -674,19 +747,15 @@ public final class QuestData {
             String key = subKey(cat, subId);
 
             String wildcardKey = subKey("", subId);
-            if (!SUBCATEGORIES.containsKey(key) && !SUBCATEGORIES.containsKey(wildcardKey)) {
-                Category c = CATEGORIES.get(cat);
+            if (!b.subCategories.containsKey(key) && !b.subCategories.containsKey(wildcardKey)) {
+                Category c = b.categories.get(cat);
                 String icon = c != null ? c.icon : q.icon;
                 String name = prettifyId(subId);
-                SUBCATEGORIES.put(key, new SubCategory(subId, cat, icon, name, 0, true, List.of(), ""));
+                b.subCategories.put(key, new SubCategory(subId, cat, icon, name, 0, true, List.of(), ""));
             }
         }
     }
 
-    private static Reader supplierToReader(IoSupplier<java.io.InputStream> supplier) throws IOException {
-        return new BufferedReader(new InputStreamReader(supplier.get(), StandardCharsets.UTF_8));
-    }
-
     public static synchronized void loadClient(boolean forceReload) {
         if (FMLEnvironment.dist != Dist.CLIENT) return;
 
@@ -700,18 +769,34 @@ public final class QuestData {
             }
         } catch (Throwable ignored) {}
 
-        if (!forceReload && !QUESTS.isEmpty()
-                && lastWorldId != null
-                && Objects.equals(lastWorldId, worldId)
-                && loadedClient) {
+        if (!forceReload && !CLIENT.catalogue.quests.isEmpty()
+                && CLIENT.lastWorldId != null
+                && Objects.equals(CLIENT.lastWorldId, worldId)
+                && CLIENT.loaded) {
             return;
         }
 
-        lastWorldId = worldId;
+        // in singleplayer the integrated server has already parsed the same files
+        if (adoptIntegratedCatalogue()) return;
+
+        CLIENT.lastWorldId = worldId;
 
         ResourceManager rm = mc.getResourceManager();
-        load(rm, forceReload);
-        loadedClient = true;
+        load(CLIENT, rm, forceReload);
+        CLIENT.loaded = true;
+    }
+
+    /**
+     * Shares the integrated server's catalogue with the client instead of parsing it again.
+     * Returns false on dedicated servers, on remote connections and before the server has loaded.
+     */
+    public static synchronized boolean adoptIntegratedCatalogue() {
+        if (FMLEnvironment.dist != Dist.CLIENT || !SERVER.loaded) return false;
+        if (Minecraft.getInstance().getSingleplayerServer() == null) return false;
+        CLIENT.catalogue = SERVER.catalogue;
+        CLIENT.lastWorldId = SERVER.lastWorldId;
+        CLIENT.loaded = true;
+        return true;
     }
 
     public static synchronized void loadServer(MinecraftServer server, boolean forceReload) {
@@ -722,45 +807,100 @@ public final class QuestData {
             worldId = server.getWorldData().getLevelName();
         }
 
-        if (!forceReload && !QUESTS.isEmpty()
-                && lastWorldId != null
-                && Objects.equals(lastWorldId, worldId)
-                && loadedServer) {
+        if (!forceReload && !SERVER.catalogue.quests.isEmpty()
+                && SERVER.lastWorldId != null
+                && Objects.equals(SERVER.lastWorldId, worldId)
+                && SERVER.loaded) {
             return;
         }
 
-        lastWorldId = worldId;
+        SERVER.lastWorldId = worldId;
 
         ResourceManager rm = server.getServerResources().resourceManager();
-        load(rm, forceReload);
-        loadedServer = true;
+        load(SERVER, rm, forceReload);
+        SERVER.loaded = true;
+    }
+
+    public static boolean isEmpty() { return CLIENT.catalogue.quests.isEmpty(); }
+
+    public static int catalogueVersion() { return SERVER.catalogue.version; }
+
+    public static int clientCatalogueVersion() { return CLIENT.catalogue.version; }
+
+    public static QuestTargetIndex targetIndex() { return SERVER.catalogue.targetIndex; }
+
+    public static QuestDependencyGraph dependencyGraph() { return SERVER.catalogue.dependencyGraph; }
+
+    public static QuestDependencyGraph clientDependencyGraph() { return CLIENT.catalogue.dependencyGraph; }
+
+    static CompiledTarget[] compiledTargets(Quest q) {
+        CompiledTarget[] compiled = SERVER.catalogue.compiledTargets.get(q);
+        if (compiled == null) compiled = CLIENT.catalogue.compiledTargets.get(q);
+        return compiled != null ? compiled : CompiledTarget.compile(q);
+    }
+
+    public static synchronized void onTagsUpdated(TagsUpdatedEvent e) {
+        Side side = e.getUpdateCause() == TagsUpdatedEvent.UpdateCause.CLIENT_PACKET_RECEIVED ? CLIENT : SERVER;
+        side.catalogue = side.catalogue.retargeted();
+    }
+
+    public static int internQuestId(String id) {
+        if (id == null) return -1;
+        synchronized (QUEST_INDEX) {
+            int index = QUEST_INDEX.getInt(id);
+            if (index >= 0) return index;
+            index = QUEST_INDEX_IDS.size();
+            QUEST_INDEX_IDS.add(id);
+            QUEST_INDEX.put(id, index);
+            return index;
+        }
+    }
+
+    public static int questIndex(String id) {
+        if (id == null) return -1;
+        synchronized (QUEST_INDEX) {
+            return QUEST_INDEX.getInt(id);
+        }
     }
 
-    public static boolean isEmpty() { return QUESTS.isEmpty(); }
+    public static String questIdAt(int index) {
+        synchronized (QUEST_INDEX) {
+            return index >= 0 && index < QUEST_INDEX_IDS.size() ? QUEST_INDEX_IDS.get(index) : null;
+        }
+    }
 
     public static Collection<Quest> all() {
-        if (!loadedClient) loadClient(false);
-        return Collections.unmodifiableCollection(QUESTS.values());
+        if (!CLIENT.loaded) loadClient(false);
+        return CLIENT.catalogue.quests.values();
     }
 
     public static Collection<Quest> allServer(MinecraftServer server) {
-        loadServer(server, false);
-        return Collections.unmodifiableCollection(QUESTS.values());
+        if (!SERVER.loaded) loadServer(server, false);
+        return SERVER.catalogue.quests.values();
     }
 
     public static Optional<Quest> byId(String id) {
-        if (!loadedClient) loadClient(false);
-        return Optional.ofNullable(QUESTS.get(id));
+        if (!CLIENT.loaded) loadClient(false);
+        return Optional.ofNullable(CLIENT.catalogue.quests.get(id));
+    }
+
+    static boolean isKnownQuestId(String id) {
+        return SERVER.catalogue.quests.containsKey(id) || questIndex(id) >= 0;
     }
 
     public static Optional<Quest> byIdServer(MinecraftServer server, String id) {
-        if (!loadedServer) loadServer(server, false);
-        return Optional.ofNullable(QUESTS.get(id));
+        if (!SERVER.loaded) loadServer(server, false);
+        return Optional.ofNullable(SERVER.catalogue.quests.get(id));
     }
 
     public static Optional<Category> categoryById(String id) {
-        if (!loadedClient) loadClient(false);
-        return Optional.ofNullable(CATEGORIES.get(id));
+        if (!CLIENT.loaded) loadClient(false);
+        return Optional.ofNullable(CLIENT.catalogue.categories.get(id));
+    }
+
+    public static Optional<Category> categoryByIdServer(MinecraftServer server, String id) {
+        if (!SERVER.loaded) loadServer(server, false);
+        return Optional.ofNullable(SERVER.catalogue.categories.get(id));
     }
 
     public static boolean isCategoryUnlocked(Category c, net.minecraft.world.entity.player.Player player) {
@@ -776,7 +916,7 @@ public final class QuestData {
     public static boolean includeQuestInAll(Quest q, net.minecraft.world.entity.player.Player player) {
         if (q == null) return false;
 
-        Category c = CATEGORIES.getOrDefault(q.category, null);
+        Category c = CLIENT.catalogue.categories.get(q.category);
         if (c == null) return true;
         if (c.excludeFromAll) return false;
 
@@ -784,34 +924,17 @@ public final class QuestData {
     }
 
     public static List<Category> categoriesOrdered() {
-        if (!loadedClient) loadClient(false);
-
-        if (!CATEGORIES.containsKey("all")) {
-            CATEGORIES.put("all", new Category("all", "minecraft:book", "All",
-                    Integer.MIN_VALUE, false, "", false));
-        }
-
-        List<Category> list = new ArrayList<>(CATEGORIES.values());
-        list.sort((a, b) -> {
-            if ("all".equals(a.id)) return -1;
-            if ("all".equals(b.id)) return 1;
-
-            if (a.order != b.order) return Integer.compare(a.order, b.order);
-            return a.name.compareToIgnoreCase(b.name);
-        });
-
-        return list;
+        if (!CLIENT.loaded) loadClient(false);
+        return CLIENT.catalogue.orderedCategories;
     }
 
-    public static synchronized List<Category> categoriesOrderedServer(MinecraftServer server) {
-        loadServer(server, false);
-
-        if (!CATEGORIES.containsKey("all")) {
-            CATEGORIES.put("all", new Category("all", "minecraft:book", "All",
-                    Integer.MIN_VALUE, false, "", false));
-        }
+    public static List<Category> categoriesOrderedServer(MinecraftServer server) {
+        if (!SERVER.loaded) loadServer(server, false);
+        return SERVER.catalogue.orderedCategories;
+    }
 
-        List<Category> list = new ArrayList<>(CATEGORIES.values());
+    private static List<Category> orderedCategories(Collection<Category> categories) {
+        List<Category> list = new ArrayList<>(categories);
         list.sort((a, b) -> {
             if ("all".equals(a.id)) return -1;
             if ("all".equals(b.id)) return 1;
@@ -824,28 +947,24 @@ public final class QuestData {
     }
 
     public static List<SubCategory> subCategoriesAllOrdered() {
-        if (!loadedClient) loadClient(false);
-        ensureSubCategoriesFromQuests();
-        return buildSubCategoryList(null);
+        if (!CLIENT.loaded) loadClient(false);
+        return CLIENT.catalogue.orderedSubCategories;
     }
 
-    public static synchronized List<SubCategory> subCategoriesAllOrderedServer(MinecraftServer server) {
-        loadServer(server, false);
-        ensureSubCategoriesFromQuests();
-        return buildSubCategoryList(null);
+    public static List<SubCategory> subCategoriesAllOrderedServer(MinecraftServer server) {
+        if (!SERVER.loaded) loadServer(server, false);
+        return SERVER.catalogue.orderedSubCategories;
     }
 
     public static List<SubCategory> subCategoriesForCategory(String categoryId) {
-        if (!loadedClient) loadClient(false);
-        ensureSubCategoriesFromQuests();
-        return buildSubCategoryList(categoryId);
+        if (!CLIENT.loaded) loadClient(false);
+        return CLIENT.catalogue.subCategoriesFor(categoryId);
     }
 
-    private static List<SubCategory> buildSubCategoryList(String categoryFilter) {
+    private static List<SubCategory> buildSubCategoryList(Map<String, Quest> quests, Map<String, SubCategory> subCategories) {
         Map<String, List<Quest>> grouped = new LinkedHashMap<>();
-        for (Quest q : QUESTS.values()) {
+        for (Quest q : quests.values()) {
             if (q == null || q.subCategory == null || q.subCategory.isBlank()) continue;
-            if (categoryFilter != null && !q.category.equalsIgnoreCase(categoryFilter)) continue;
 
             String key = subKey(q.category, q.subCategory);
             grouped.computeIfAbsent(key, k -> new ArrayList<>()).add(q);
@@ -859,8 +978,8 @@ public final class QuestData {
 
             qs.sort(Comparator.comparing(Quest::sourceSortKey));
 
-            SubCategory meta = SUBCATEGORIES.get(key);
-            if (meta == null) meta = SUBCATEGORIES.get(subKey("", qs.get(0).subCategory));
+            SubCategory meta = subCategories.get(key);
+            if (meta == null) meta = subCategories.get(subKey("", qs.get(0).subCategory));
             String cat = qs.get(0).category;
             String id = meta != null ? meta.id : qs.get(0).subCategory;
             String icon = meta != null ? meta.icon : qs.get(0).icon;
@@ -1319,223 +1438,25 @@ public final class QuestData {
         }
     }
 
-    public static synchronized void applyNetworkJson(String json) {
-        QUESTS.clear();
-        CATEGORIES.clear();
-        SUBCATEGORIES.clear();
-
-        try {
-            JsonElement rootEl = GSON.fromJson(json, JsonElement.class);
-            if (rootEl == null || !rootEl.isJsonObject()) {
-                loadedClient = false;
-                return;
+    public static synchronized void applyNetworkCatalogue(Collection<Category> categories,
+                                                          Collection<SubCategory> subCategories,
+                                                          Collection<Quest> quests) {
+        Builder b = new Builder();
+        if (categories == null || subCategories == null || quests == null) {
+            CLIENT.loaded = false;
+        } else {
+            for (Category c : categories) {
+                if (c != null && c.id != null && !c.id.isBlank()) b.categories.put(c.id, c);
             }
-
-            JsonObject root = rootEl.getAsJsonObject();
-
-            if (root.has("categories") && root.get("categories").isJsonArray()) {
-                for (JsonElement el : root.getAsJsonArray("categories")) {
-                    if (!el.isJsonObject()) continue;
-                    JsonObject o = el.getAsJsonObject();
-
-                    String id = optString(o, "id");
-                    if (id == null || id.isBlank()) continue;
-
-                    String icon = optString(o, "icon");
-                    String name = optString(o, "name");
-                    int order = parseIntFlexible(o, "order", 0);
-                    boolean excludeFromAll = parseBoolFlexible(o, "excludeFromAll", false);
-                    String dependency = optString(o, "dependency");
-                    boolean autoComplete = parseBoolFlexible(o, "auto_complete",
-                            parseBoolFlexible(o, "autoComplete", false));
-
-                    CATEGORIES.put(id, new Category(id, icon, name, order, excludeFromAll, dependency, autoComplete));
-                }
+            for (SubCategory sc : subCategories) {
+                if (sc != null && !sc.id.isBlank()) b.subCategories.put(subKey(sc.category, sc.id), sc);
             }
-
-            if (root.has("subCategories") && root.get("subCategories").isJsonArray()) {
-                for (JsonElement el : root.getAsJsonArray("subCategories")) {
-                    if (!el.isJsonObject()) continue;
-                    JsonObject o = el.getAsJsonObject();
-
-                    String id = optString(o, "id");
-                    if (id == null || id.isBlank()) continue;
-
-                    String cat = optString(o, "category");
-                    if (cat == null) cat = "";
-                    String icon = optString(o, "icon");
-                    String name = optString(o, "name");
-                    int order = parseIntFlexible(o, "order", 0);
-                    boolean defaultOpen = parseBoolFlexible(o, "defaultOpen", true);
-                    String sourcePath = optString(o, "sourcePath");
-
-                    List<String> questIds = new ArrayList<>();
-                    if (o.has("quests") && o.get("quests").isJsonArray()) {
-                        for (JsonElement qe : o.getAsJsonArray("quests")) {
-                            if (qe.isJsonPrimitive()) {
-                                String qid = qe.getAsString();
-                                if (qid != null && !qid.isBlank()) questIds.add(qid);
-                            }
-                        }
-                    }
-
-                    String key = subKey(cat, id);
-                    SUBCATEGORIES.put(key, new SubCategory(id, cat, icon, name, order, defaultOpen, questIds, sourcePath));
-                }
+            for (Quest q : quests) {
+                if (q != null && !isQuestDisabled(q)) b.quests.put(q.id, q);
             }
-
-            if (root.has("quests") && root.get("quests").isJsonArray()) {
-                for (JsonElement el : root.getAsJsonArray("quests")) {
-                    if (!el.isJsonObject()) continue;
-                    JsonObject o = el.getAsJsonObject();
-
-                    String id = optString(o, "id");
-                    if (id == null || id.isBlank()) continue;
-
-                    String name = optString(o, "name");
-                    String icon = optString(o, "icon");
-                    String description = optString(o, "description");
-
-                    List<String> deps = new ArrayList<>();
-                    if (o.has("dependencies") && o.get("dependencies").isJsonArray()) {
-                        for (JsonElement d : o.getAsJsonArray("dependencies")) {
-                            if (d.isJsonPrimitive()) {
-                                String s = d.getAsString();
-                                if (!s.isBlank()) deps.add(s);
-                            }
-                        }
-                    }
-
-                    boolean optional = parseBoolFlexible(o, "optional", false);
-                    boolean repeatable = parseBoolFlexible(o, "repeatable", false);
-                    boolean autoComplete = parseBoolFlexible(o, "auto_complete",
-                            parseBoolFlexible(o, "autoComplete", false));
-                    boolean lockAfterDependency = parseBoolFlexible(o, "lock_after_dependency",
-                            parseBoolFlexible(o, "lockAfterDependency", false));
-                    boolean hiddenUnderDependency = parseBoolFlexible(o, "hiddenUnderDependency", false);
-
-                    Rewards rewards = new Rewards(List.of(), List.of(), List.of(), List.of(), "", 0);
-                    if (o.has("rewards") && o.get("rewards").isJsonObject()) {
-                        JsonObject ro = o.getAsJsonObject("rewards");
-
-                        List<RewardEntry> rItems = new ArrayList<>();
-                        if (ro.has("items") && ro.get("items").isJsonArray()) {
-                            for (JsonElement ie : ro.getAsJsonArray("items")) {
-                                if (!ie.isJsonObject()) continue;
-                                JsonObject io = ie.getAsJsonObject();
-                                String item = optString(io, "item");
-                                int cnt = io.has("count") ? io.get("count").getAsInt() : 1;
-                                if (item != null && !item.isBlank()) rItems.add(new RewardEntry(item, cnt));
-                            }
-                        }
-
-                        List<CommandReward> cmds = new ArrayList<>();
-                        if (ro.has("command") && ro.get("command").isJsonPrimitive()) {
-                            String c = ro.get("command").getAsString();
-                            if (c != null && !c.isBlank()) cmds.add(new CommandReward(c, "", ""));
-                        }
-                        if (ro.has("commands") && ro.get("commands").isJsonArray()) {
-                            for (JsonElement ce : ro.getAsJsonArray("commands")) {
-                                if (ce == null) continue;
-                                if (ce.isJsonPrimitive()) {
-                                    String c = ce.getAsString();
-                                    if (c != null && !c.isBlank()) cmds.add(new CommandReward(c, "", ""));
-                                    continue;
-                                }
-                                if (!ce.isJsonObject()) continue;
-                                JsonObject co = ce.getAsJsonObject();
-                                String c = optString(co, "command");
-                                String ic = optString(co, "icon");
-                                String ti = optString(co, "title");
-                                if (c != null && !c.isBlank()) cmds.add(new CommandReward(c, ic, ti));
-                            }
-                        }
-
-                        List<FunctionReward> fns = new ArrayList<>();
-                        if (ro.has("functions") && ro.get("functions").isJsonArray()) {
-                            for (JsonElement fe : ro.getAsJsonArray("functions")) {
-                                if (fe == null) continue;
-                                if (fe.isJsonPrimitive()) {
-                                    String f = fe.getAsString();
-                                    if (f != null && !f.isBlank()) fns.add(new FunctionReward(f, "", ""));
-                                    continue;
-                                }
-                                if (!fe.isJsonObject()) continue;
-                                JsonObject fo = fe.getAsJsonObject();
-                                String f = optString(fo, "function");
-                                String ic = optString(fo, "icon");
-                                String ti = optString(fo, "title");
-                                if (f != null && !f.isBlank()) fns.add(new FunctionReward(f, ic, ti));
-                            }
-                        }
-
-                        List<LootTableReward> lootTables = new ArrayList<>();
-                        if (ro.has("lootTables") && ro.get("lootTables").isJsonArray()) {
-                            for (JsonElement le : ro.getAsJsonArray("lootTables")) {
-                                if (!le.isJsonObject()) continue;
-                                JsonObject lo = le.getAsJsonObject();
-                                String lootTable = optString(lo, "lootTable");
-                                String ic = optString(lo, "icon");
-                                String ti = optString(lo, "title");
-                                if (lootTable != null && !lootTable.isBlank()) {
-                                    lootTables.add(new LootTableReward(lootTable, ic, ti));
-                                }
-                            }
-                        }
-
-                        String expType = optString(ro, "expType");
-                        int expAmount = ro.has("expAmount") && ro.get("expAmount").isJsonPrimitive() && ro.getAsJsonPrimitive("expAmount").isNumber()
-                                ? ro.getAsJsonPrimitive("expAmount").getAsInt() : 0;
-
-                        rewards = new Rewards(rItems, cmds, fns, lootTables, expType, expAmount);
-                    }
-
-                    String type = optString(o, "type");
-
-                    Completion completion = new Completion(List.of());
-                    if (o.has("completion") && o.get("completion").isJsonObject()) {
-                        JsonObject co = o.getAsJsonObject("completion");
-                        List<Target> targets = new ArrayList<>();
-                        if (co.has("targets") && co.get("targets").isJsonArray()) {
-                            for (JsonElement te : co.getAsJsonArray("targets")) {
-                                if (!te.isJsonObject()) continue;
-                                JsonObject to = te.getAsJsonObject();
-                                String kind = optString(to, "kind");
-                                String tid = optString(to, "id");
-                                int count = to.has("count") ? to.get("count").getAsInt() : 1;
-                                String hint = optString(to, "hint");
-                                if (kind != null && !kind.isBlank() && tid != null && !tid.isBlank()) {
-                                    targets.add(new Target(kind, tid, count, hint));
-                                }
-                            }
-                        }
-                        completion = new Completion(targets);
-                    }
-
-                    String category = optString(o, "category");
-                    String subCategory = optString(o, "subCategory");
-                    String sourcePath = optString(o, "sourcePath");
-
-                    Quest q = new Quest(id, name, icon, description, deps, lockAfterDependency, optional, repeatable, autoComplete, hiddenUnderDependency,
-                            rewards, type, completion,
-                            category, subCategory, sourcePath);
-                    if (!isQuestDisabled(q)) QUESTS.put(q.id, q);
-                }
-            }
-
-            if (!CATEGORIES.containsKey("all")) {
-                CATEGORIES.put("all", new Category("all", "minecraft:book", "All",
-                        Integer.MIN_VALUE, false, "", false));
-            }
-
-            ensureSubCategoriesFromQuests();
-            loadedClient = true;
-        } catch (Exception e) {
-            QUESTS.clear();
-            CATEGORIES.clear();
-            SUBCATEGORIES.clear();
-            loadedClient = false;
+            CLIENT.loaded = true;
         }
+        publish(CLIENT, b);
     }
 
     private static String optString(JsonObject o, String key) {
@@ -0,0 +1,125 @@
+package net.revilodev.boundless.quest;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.revilodev.boundless.BoundlessMod;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Quest dependencies compiled to integer indices. Built once per catalogue
+ * load; cycles are reported to the log and the quests involved are placed
+ * after everything else in {@link #topologicalOrder()}.
+ */
+public final class QuestDependencyGraph {
+    public static final QuestDependencyGraph EMPTY = build(List.of());
+
+    private static final int[] NO_EDGES = new int[0];
+
+    private final QuestData.Quest[] quests;
+    private final Object2IntOpenHashMap<String> indexById;
+    private final int[][] dependencies;
+    private final int[][] dependents;
+    private final boolean[] missingDependency;
+    private final int[] topologicalOrder;
+
+    private QuestDependencyGraph(QuestData.Quest[] quests, Object2IntOpenHashMap<String> indexById,
+                                 int[][] dependencies, int[][] dependents, boolean[] missingDependency,
+                                 int[] topologicalOrder) {
+        this.quests = quests;
+        this.indexById = indexById;
+        this.dependencies = dependencies;
+        this.dependents = dependents;
+        this.missingDependency = missingDependency;
+        this.topologicalOrder = topologicalOrder;
+    }
+
+    public static QuestDependencyGraph build(Collection<QuestData.Quest> all) {
+        List<QuestData.Quest> list = new ArrayList<>(all.size());
+        for (QuestData.Quest q : all) if (q != null) list.add(q);
+        int n = list.size();
+
+        QuestData.Quest[] quests = list.toArray(new QuestData.Quest[0]);
+        Object2IntOpenHashMap<String> indexById = new Object2IntOpenHashMap<>(n);
+        indexById.defaultReturnValue(-1);
+        for (int i = 0; i < n; i++) indexById.put(quests[i].id, i);
+
+        int[][] dependencies = new int[n][];
+        boolean[] missingDependency = new boolean[n];
+        IntArrayList[] reverse = new IntArrayList[n];
+        for (int i = 0; i < n; i++) {
+            IntArrayList deps = new IntArrayList();
+            for (String depId : quests[i].dependencies) {
+                int d = indexById.getInt(depId);
+                if (d < 0) {
+                    missingDependency[i] = true;
+                    continue;
+                }
+                if (deps.contains(d)) continue;
+                deps.add(d);
+                if (reverse[d] == null) reverse[d] = new IntArrayList();
+                reverse[d].add(i);
+            }
+            dependencies[i] = deps.isEmpty() ? NO_EDGES : deps.toIntArray();
+        }
+
+        int[][] dependents = new int[n][];
+        for (int i = 0; i < n; i++) dependents[i] = reverse[i] == null ? NO_EDGES : reverse[i].toIntArray();
+
+        int[] remaining = new int[n];
+        int[] order = new int[n];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < n; i++) {
+            remaining[i] = dependencies[i].length;
+            if (remaining[i] == 0) order[tail++] = i;
+        }
+        while (head < tail) {
+            int cur = order[head++];
+            for (int next : dependents[cur]) {
+                if (--remaining[next] == 0) order[tail++] = next;
+            }
+        }
+        if (tail < n) {
+            List<String> cyclic = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                if (remaining[i] <= 0) continue;
+                cyclic.add(quests[i].id);
+                order[tail++] = i;
+            }
+            BoundlessMod.LOGGER.warn("[Boundless] Quest dependency cycle detected between: {}", cyclic);
+        }
+
+        return new QuestDependencyGraph(quests, indexById, dependencies, dependents, missingDependency, order);
+    }
+
+    public int size() {
+        return quests.length;
+    }
+
+    public int indexOf(String questId) {
+        return questId == null ? -1 : indexById.getInt(questId);
+    }
+
+    public QuestData.Quest quest(int index) {
+        return quests[index];
+    }
+
+    public int[] dependenciesOf(int index) {
+        return dependencies[index];
+    }
+
+    public int[] dependentsOf(int index) {
+        return dependents[index];
+    }
+
+    public boolean hasMissingDependency(int index) {
+        return missingDependency[index];
+    }
+
+    public int[] topologicalOrder() {
+        return topologicalOrder;
+    }
+}
@@ -0,0 +1,310 @@
+package net.revilodev.boundless.quest;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+import net.minecraft.world.inventory.ContainerListener;
+import net.minecraft.world.item.ItemStack;
+import net.neoforged.neoforge.common.util.FakePlayer;
+import net.neoforged.neoforge.event.StatAwardEvent;
+import net.neoforged.neoforge.event.entity.living.MobEffectEvent;
+import net.neoforged.neoforge.event.entity.player.AdvancementEvent;
+import net.neoforged.neoforge.event.entity.player.PlayerContainerEvent;
+import net.neoforged.neoforge.event.entity.player.PlayerXpEvent;
+import net.revilodev.boundless.Config;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Re-evaluates only the quests affected by something that happened to a player
+ * (inventory change, kill, advancement, effect, stat or xp change). A full scan
+ * still runs every {@link Config#questSafetyScanInterval()} ticks as a safety net.
+ * The evaluations themselves are queued and worked off once per server tick within
+ * {@link Config#questTickBudgetMicros()}, with intervals stretched while the server lags.
+ */
+public final class QuestEvaluator {
+    private QuestEvaluator() {}
+
+    // dirty quests are flushed in small batches so bursts of stat/xp events coalesce
+    private static final int FLUSH_INTERVAL_TICKS = 5;
+    // targets without a change event of their own are still polled once per second
+    private static final int POLL_INTERVAL_TICKS = 20;
+    // quests evaluated for one player before the scheduler moves on to the next
+    private static final int SLICE_QUESTS = 16;
+    // intervals start stretching above this MSPT and reach MAX_STRETCH at 50 ms
+    private static final double STRETCH_START_MSPT = 35.0D;
+    private static final int MAX_STRETCH = 4;
+    // how long a joining player's first scan waits for the client to answer the catalogue offer
+    private static final int CATALOGUE_WAIT_TICKS = 200;
+
+    private static final String KIND_XP = "xp";
+    private static final String KIND_LEVELUP_LEVEL = "levelup_level";
+
+    private static final Map<UUID, PlayerState> PLAYERS = new HashMap<>();
+    private static final ArrayDeque<PlayerState> QUEUE = new ArrayDeque<>();
+    // players who just joined, mapped to the tick their first scan starts at if the client stays silent
+    private static final Object2IntOpenHashMap<UUID> AWAITING_CATALOGUE = new Object2IntOpenHashMap<>();
+
+    private static int stretch = 1;
+    private static double lastMspt;
+    private static long lastTickNanos;
+
+    private static final class PlayerState {
+        private final ServerPlayer player;
+        private final Set<String> dirtyQuests = new LinkedHashSet<>();
+        private boolean fullScan = true;
+        private int catalogueVersion = -1;
+        private int nextSafetyScanTick = 0;
+        private boolean flushDue;
+        private boolean queued;
+        // position in the dependency order of the full scan in progress, or -1
+        private QuestDependencyGraph scanGraph;
+        private int scanCursor = -1;
+        private AbstractContainerMenu watchedInventoryMenu;
+        private final ContainerListener inventoryListener = new ContainerListener() {
+            @Override
+            public void slotChanged(AbstractContainerMenu menu, int slot, ItemStack stack) {
+                if (slot < 0 || slot >= menu.slots.size()) return;
+                if (!(menu.getSlot(slot).container instanceof Inventory)) return;
+                QuestTracker.invalidateInventory(player);
+                // removals never make a quest ready, so only the incoming stack matters
+                for (QuestData.Quest q : QuestData.targetIndex().questsForItem(stack)) dirtyQuests.add(q.id);
+            }
+
+            @Override
+            public void dataChanged(AbstractContainerMenu menu, int id, int value) {
+            }
+        };
+
+        private PlayerState(ServerPlayer player) {
+            this.player = player;
+        }
+    }
+
+    public static void tick(ServerPlayer sp) {
+        if (sp == null || sp instanceof FakePlayer) return;
+        PlayerState state = PLAYERS.get(sp.getUUID());
+        if (state == null || state.player != sp) {
+            state = new PlayerState(sp);
+            PLAYERS.put(sp.getUUID(), state);
+        }
+
+        if (state.watchedInventoryMenu != sp.inventoryMenu) {
+            state.watchedInventoryMenu = sp.inventoryMenu;
+            sp.inventoryMenu.addSlotListener(state.inventoryListener);
+        }
+
+        int now = sp.server.getTickCount();
+        if (AWAITING_CATALOGUE.containsKey(sp.getUUID())) {
+            if (now < AWAITING_CATALOGUE.getInt(sp.getUUID())) return;
+            AWAITING_CATALOGUE.removeInt(sp.getUUID());
+        }
+
+        int version = QuestData.catalogueVersion();
+        if (state.catalogueVersion != version) {
+            state.catalogueVersion = version;
+            state.fullScan = true;
+        }
+
+        if (state.fullScan || now >= state.nextSafetyScanTick) {
+            state.fullScan = false;
+            state.nextSafetyScanTick = now + Config.questSafetyScanInterval() * stretch;
+            QuestData.allServer(sp.server);
+            // a scan already in progress restarts, since the catalogue may have changed under it
+            state.scanGraph = QuestData.dependencyGraph();
+            state.scanCursor = 0;
+            enqueue(state);
+            return;
+        }
+
+        if (now % (POLL_INTERVAL_TICKS * stretch) == 0) {
+            for (QuestData.Quest q : QuestData.targetIndex().questsOfKind(KIND_LEVELUP_LEVEL)) state.dirtyQuests.add(q.id);
+        }
+        if (now % (FLUSH_INTERVAL_TICKS * stretch) != 0) return;
+        if (state.dirtyQuests.isEmpty()) return;
+        state.flushDue = true;
+        enqueue(state);
+    }
+
+    private static void enqueue(PlayerState state) {
+        if (state.queued) return;
+        state.queued = true;
+        QUEUE.addLast(state);
+    }
+
+    /** Works off queued evaluations, round-robin across players, until this tick's budget is spent. */
+    public static void runScheduled(MinecraftServer server) {
+        long start = System.nanoTime();
+        long deadline = start + Config.questTickBudgetMicros() * 1000L;
+
+        lastMspt = server.getAverageTickTimeNanos() / 1_000_000.0D;
+        double load = Math.min(1.0D, Math.max(0.0D, (lastMspt - STRETCH_START_MSPT) / (50.0D - STRETCH_START_MSPT)));
+        stretch = 1 + (int) Math.round(load * (MAX_STRETCH - 1));
+
+        while (!QUEUE.isEmpty() && System.nanoTime() < deadline) {
+            PlayerState state = QUEUE.pollFirst();
+            state.queued = false;
+            if (PLAYERS.get(state.player.getUUID()) != state || state.player.isRemoved()) continue;
+            if (runSlice(state, deadline)) enqueue(state);
+        }
+        lastTickNanos = System.nanoTime() - start;
+    }
+
+    // returns true while the player still has queued work
+    private static boolean runSlice(PlayerState state, long deadline) {
+        ServerPlayer sp = state.player;
+        int done = 0;
+
+        // event-driven changes first, they are what the player is waiting on
+        while (state.flushDue && done < SLICE_QUESTS) {
+            if (state.dirtyQuests.isEmpty()) {
+                state.flushDue = false;
+                break;
+            }
+            // evaluating can mark further quests dirty, so take one at a time
+            String questId = state.dirtyQuests.iterator().next();
+            state.dirtyQuests.remove(questId);
+            QuestData.byIdServer(sp.server, questId).ifPresent(q -> QuestTracker.serverEvaluateQuest(sp, q));
+            done++;
+            if (System.nanoTime() >= deadline) return true;
+        }
+
+        if (state.scanCursor >= 0) {
+            // dependencies first, so a chain of quests can complete within one pass
+            int[] order = state.scanGraph.topologicalOrder();
+            while (state.scanCursor < order.length && done < SLICE_QUESTS) {
+                QuestTracker.serverEvaluateQuest(sp, state.scanGraph.quest(order[state.scanCursor++]));
+                done++;
+                if (System.nanoTime() >= deadline) break;
+            }
+            if (state.scanCursor >= order.length) {
+                state.scanCursor = -1;
+                state.scanGraph = null;
+            }
+        }
+
+        return state.flushDue || state.scanCursor >= 0;
+    }
+
+    /** Quest evaluations still waiting across all players. */
+    public static int backlog() {
+        int total = 0;
+        for (PlayerState state : PLAYERS.values()) {
+            total += state.dirtyQuests.size();
+            if (state.scanCursor >= 0) total += state.scanGraph.topologicalOrder().length - state.scanCursor;
+        }
+        return total;
+    }
+
+    public static int queuedPlayers() {
+        return QUEUE.size();
+    }
+
+    public static int intervalStretch() {
+        return stretch;
+    }
+
+    public static double lastMspt() {
+        return lastMspt;
+    }
+
+    public static long lastTickMicros() {
+        return lastTickNanos / 1000L;
+    }
+
+    private static PlayerState stateOf(Player player) {
+        if (!(player instanceof ServerPlayer sp) || sp instanceof FakePlayer) return null;
+        PlayerState state = PLAYERS.get(sp.getUUID());
+        return state != null && state.player == sp ? state : null;
+    }
+
+    public static boolean watchesInventory(ServerPlayer sp) {
+        PlayerState state = stateOf(sp);
+        return state != null && state.watchedInventoryMenu == sp.inventoryMenu;
+    }
+
+    private static void markAll(Player player, Iterable<QuestData.Quest> quests) {
+        PlayerState state = stateOf(player);
+        if (state == null) return;
+        for (QuestData.Quest q : quests) state.dirtyQuests.add(q.id);
+    }
+
+    public static void markQuest(ServerPlayer sp, String questId) {
+        PlayerState state = stateOf(sp);
+        if (state == null || questId == null || questId.isBlank()) return;
+        state.dirtyQuests.add(questId);
+    }
+
+    public static void markQuestChanged(ServerPlayer sp, String questId) {
+        PlayerState state = stateOf(sp);
+        if (state == null || questId == null || questId.isBlank()) return;
+        state.dirtyQuests.add(questId);
+        QuestDependencyGraph graph = QuestData.dependencyGraph();
+        int index = graph.indexOf(questId);
+        if (index < 0) return;
+        for (int dependent : graph.dependentsOf(index)) {
+            state.dirtyQuests.add(graph.quest(dependent).id);
+        }
+    }
+
+    public static void requestFullScan(ServerPlayer sp) {
+        PlayerState state = stateOf(sp);
+        if (state != null) state.fullScan = true;
+    }
+
+    public static void forget(ServerPlayer sp) {
+        if (sp == null) return;
+        PLAYERS.remove(sp.getUUID());
+        AWAITING_CATALOGUE.removeInt(sp.getUUID());
+    }
+
+    /** Holds back a joining player's checks so their results reach a client that already has the catalogue. */
+    public static void deferUntilCatalogue(ServerPlayer sp) {
+        if (sp == null || sp instanceof FakePlayer) return;
+        AWAITING_CATALOGUE.put(sp.getUUID(), sp.server.getTickCount() + CATALOGUE_WAIT_TICKS);
+    }
+
+    public static void catalogueReady(ServerPlayer sp) {
+        if (sp != null) AWAITING_CATALOGUE.removeInt(sp.getUUID());
+    }
+
+    public static void onKill(ServerPlayer sp, EntityType<?> victim) {
+        markAll(sp, QuestData.targetIndex().questsForEntity(victim));
+    }
+
+    public static void onContainerOpen(PlayerContainerEvent.Open e) {
+        PlayerState state = stateOf(e.getEntity());
+        if (state != null) e.getContainer().addSlotListener(state.inventoryListener);
+    }
+
+    public static void onAdvancementEarn(AdvancementEvent.AdvancementEarnEvent e) {
+        markAll(e.getEntity(), QuestData.targetIndex().questsForAdvancement(e.getAdvancement().id()));
+    }
+
+    // effect progress is latched once reached, so only additions can change readiness
+    public static void onEffectAdded(MobEffectEvent.Added e) {
+        if (!(e.getEntity() instanceof Player player) || e.getEffectInstance() == null) return;
+        markAll(player, QuestData.targetIndex().questsForEffect(e.getEffectInstance().getEffect()));
+    }
+
+    public static void onStatAward(StatAwardEvent e) {
+        markAll(e.getEntity(), QuestData.targetIndex().questsForStat(e.getStat()));
+    }
+
+    public static void onXpChange(PlayerXpEvent.XpChange e) {
+        markAll(e.getEntity(), QuestData.targetIndex().questsOfKind(KIND_XP));
+    }
+
+    public static void onLevelChange(PlayerXpEvent.LevelChange e) {
+        markAll(e.getEntity(), QuestData.targetIndex().questsOfKind(KIND_XP));
+    }
+}
@@ -1,5 +1,7 @@
 package net.revilodev.boundless.quest;
 
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import net.minecraft.core.HolderLookup;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.Tag;
@@ -7,13 +9,28 @@ import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.saveddata.SavedData;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 public final class QuestObjectiveState extends SavedData {
-    private final Map<String, Map<String, Integer>> itemProgressByPlayer = new HashMap<>();
-    private final Map<String, Map<String, Boolean>> effectProgressByPlayer = new HashMap<>();
-    private final Map<String, Map<String, String>> inputProgressByPlayer = new HashMap<>();
+    private static final String TAG_ITEMS = "items";
+    private static final String TAG_EFFECTS = "effects";
+    private static final String TAG_INPUTS = "inputs";
+
+    // player -> quest id -> objectives; keys inside stay "<questId>:..." so the saved layout is unchanged
+    private final Map<UUID, Map<String, QuestObjectives>> byPlayer = new HashMap<>();
+
+    private static final class QuestObjectives {
+        private final Object2IntOpenHashMap<String> items = new Object2IntOpenHashMap<>();
+        private final Set<String> effects = new HashSet<>();
+        private final Map<String, String> inputs = new HashMap<>();
+
+        boolean isEmpty() {
+            return items.isEmpty() && effects.isEmpty() && inputs.isEmpty();
+        }
+    }
 
     private QuestObjectiveState() {}
 
@@ -27,44 +44,25 @@ public final class QuestObjectiveState extends SavedData {
 
     public static QuestObjectiveState load(CompoundTag tag, HolderLookup.Provider provider) {
         QuestObjectiveState s = new QuestObjectiveState();
-
-        if (tag.contains("items", Tag.TAG_COMPOUND)) {
-            CompoundTag itemsRoot = tag.getCompound("items");
-            for (String playerKey : itemsRoot.getAllKeys()) {
-                CompoundTag inner = itemsRoot.getCompound(playerKey);
-                Map<String, Integer> m = new HashMap<>();
-                for (String k : inner.getAllKeys()) {
-                    if (inner.contains(k, Tag.TAG_INT)) m.put(k, inner.getInt(k));
-                }
-                if (!m.isEmpty()) s.itemProgressByPlayer.put(playerKey, m);
-            }
+        Set<String> players = new HashSet<>();
+        for (String root : new String[]{TAG_ITEMS, TAG_EFFECTS, TAG_INPUTS}) {
+            if (tag.contains(root, Tag.TAG_COMPOUND)) players.addAll(tag.getCompound(root).getAllKeys());
         }
 
-        if (tag.contains("effects", Tag.TAG_COMPOUND)) {
-            CompoundTag effectsRoot = tag.getCompound("effects");
-            for (String playerKey : effectsRoot.getAllKeys()) {
-                CompoundTag inner = effectsRoot.getCompound(playerKey);
-                Map<String, Boolean> m = new HashMap<>();
-                for (String k : inner.getAllKeys()) {
-                    if (inner.contains(k, Tag.TAG_BYTE)) m.put(k, inner.getBoolean(k));
-                }
-                if (!m.isEmpty()) s.effectProgressByPlayer.put(playerKey, m);
+        for (String playerKey : players) {
+            UUID uuid;
+            try {
+                uuid = UUID.fromString(playerKey);
+            } catch (Exception ignored) {
+                continue;
             }
-        }
-
-        if (tag.contains("inputs", Tag.TAG_COMPOUND)) {
-            CompoundTag inputsRoot = tag.getCompound("inputs");
-            for (String playerKey : inputsRoot.getAllKeys()) {
-                CompoundTag inner = inputsRoot.getCompound(playerKey);
-                Map<String, String> m = new HashMap<>();
-                for (String k : inner.getAllKeys()) {
-                    if (inner.contains(k, Tag.TAG_STRING)) {
-                        String value = inner.getString(k);
-                        if (!value.isBlank()) m.put(k, value);
-                    }
-                }
-                if (!m.isEmpty()) s.inputProgressByPlayer.put(playerKey, m);
+            CompoundTag inner = new CompoundTag();
+            for (String root : new String[]{TAG_ITEMS, TAG_EFFECTS, TAG_INPUTS}) {
+                inner.put(root, tag.getCompound(root).getCompound(playerKey));
             }
+            s.loadPlayer(uuid, inner);
+            PlayerDataShards.adopt(uuid);
+            s.setDirty();
         }
 
         return s;
@@ -72,136 +70,196 @@ public final class QuestObjectiveState extends SavedData {
 
     @Override
     public CompoundTag save(CompoundTag tag, HolderLookup.Provider provider) {
+        PlayerDataShards.saveDirty();
         CompoundTag itemsRoot = new CompoundTag();
-        for (Map.Entry<String, Map<String, Integer>> e : itemProgressByPlayer.entrySet()) {
-            CompoundTag inner = new CompoundTag();
-            for (Map.Entry<String, Integer> q : e.getValue().entrySet()) {
-                inner.putInt(q.getKey(), Math.max(0, q.getValue()));
-            }
-            itemsRoot.put(e.getKey(), inner);
+        CompoundTag effectsRoot = new CompoundTag();
+        CompoundTag inputsRoot = new CompoundTag();
+        for (UUID player : byPlayer.keySet()) {
+            if (!PlayerDataShards.isDirty(player)) continue;
+            String p = player.toString();
+            CompoundTag inner = savePlayer(player);
+            itemsRoot.put(p, inner.getCompound(TAG_ITEMS));
+            effectsRoot.put(p, inner.getCompound(TAG_EFFECTS));
+            CompoundTag inputs = inner.getCompound(TAG_INPUTS);
+            if (!inputs.isEmpty()) inputsRoot.put(p, inputs);
         }
-        tag.put("items", itemsRoot);
+        tag.put(TAG_ITEMS, itemsRoot);
+        tag.put(TAG_EFFECTS, effectsRoot);
+        tag.put(TAG_INPUTS, inputsRoot);
 
-        CompoundTag effectsRoot = new CompoundTag();
-        for (Map.Entry<String, Map<String, Boolean>> e : effectProgressByPlayer.entrySet()) {
-            CompoundTag inner = new CompoundTag();
-            for (Map.Entry<String, Boolean> q : e.getValue().entrySet()) {
-                inner.putBoolean(q.getKey(), Boolean.TRUE.equals(q.getValue()));
-            }
-            effectsRoot.put(e.getKey(), inner);
+        return tag;
+    }
+
+    void loadPlayer(UUID player, CompoundTag tag) {
+        CompoundTag items = tag.getCompound(TAG_ITEMS);
+        for (String k : items.getAllKeys()) {
+            int value = items.getInt(k);
+            if (items.contains(k, Tag.TAG_INT) && value > 0) objectives(player, questIdOf(k)).items.put(k, value);
         }
-        tag.put("effects", effectsRoot);
 
-        CompoundTag inputsRoot = new CompoundTag();
-        for (Map.Entry<String, Map<String, String>> e : inputProgressByPlayer.entrySet()) {
-            CompoundTag inner = new CompoundTag();
-            for (Map.Entry<String, String> q : e.getValue().entrySet()) {
-                String value = q.getValue() == null ? "" : q.getValue().trim();
-                if (!value.isBlank()) inner.putString(q.getKey(), value);
+        CompoundTag effects = tag.getCompound(TAG_EFFECTS);
+        for (String k : effects.getAllKeys()) {
+            if (effects.contains(k, Tag.TAG_BYTE) && effects.getBoolean(k)) objectives(player, questIdOf(k)).effects.add(k);
+        }
+
+        CompoundTag inputs = tag.getCompound(TAG_INPUTS);
+        for (String k : inputs.getAllKeys()) {
+            if (!inputs.contains(k, Tag.TAG_STRING)) continue;
+            String value = inputs.getString(k);
+            if (!value.isBlank()) objectives(player, questIdOf(k)).inputs.put(k, value);
+        }
+    }
+
+    CompoundTag savePlayer(UUID player) {
+        CompoundTag items = new CompoundTag();
+        CompoundTag effects = new CompoundTag();
+        CompoundTag inputs = new CompoundTag();
+        Map<String, QuestObjectives> quests = byPlayer.get(player);
+        if (quests != null) {
+            for (QuestObjectives o : quests.values()) {
+                for (Object2IntMap.Entry<String> e : o.items.object2IntEntrySet()) {
+                    items.putInt(e.getKey(), Math.max(0, e.getIntValue()));
+                }
+                for (String k : o.effects) effects.putBoolean(k, true);
+                for (Map.Entry<String, String> e : o.inputs.entrySet()) {
+                    String value = e.getValue() == null ? "" : e.getValue().trim();
+                    if (!value.isBlank()) inputs.putString(e.getKey(), value);
+                }
             }
-            if (!inner.isEmpty()) inputsRoot.put(e.getKey(), inner);
         }
-        tag.put("inputs", inputsRoot);
 
+        CompoundTag tag = new CompoundTag();
+        tag.put(TAG_ITEMS, items);
+        tag.put(TAG_EFFECTS, effects);
+        tag.put(TAG_INPUTS, inputs);
         return tag;
     }
 
-    public int getItemProgress(UUID player, String key) {
-        Map<String, Integer> m = itemProgressByPlayer.get(player.toString());
-        if (m == null) return 0;
-        return Math.max(0, m.getOrDefault(key, 0));
+    void evict(UUID player) {
+        byPlayer.remove(player);
     }
 
-    public int updateItemProgress(UUID player, String key, int current, int required) {
-        String p = player.toString();
-        Map<String, Integer> m = itemProgressByPlayer.computeIfAbsent(p, k -> new HashMap<>());
-        int prev = Math.max(0, m.getOrDefault(key, 0));
-        int now = Math.max(prev, Math.min(Math.max(0, current), Math.max(0, required)));
-        if (now <= 0) {
-            m.remove(key);
-            if (m.isEmpty()) itemProgressByPlayer.remove(p);
-        } else {
-            m.put(key, now);
-        }
+    private void markDirty(UUID player) {
+        PlayerDataShards.markDirty(player);
         setDirty();
-        return now;
     }
 
-    public boolean getEffectDone(UUID player, String key) {
-        Map<String, Boolean> m = effectProgressByPlayer.get(player.toString());
-        if (m == null) return false;
-        return Boolean.TRUE.equals(m.get(key));
+    private QuestObjectives objectives(UUID player, String questId) {
+        return byPlayer.computeIfAbsent(player, k -> new HashMap<>()).computeIfAbsent(questId, k -> new QuestObjectives());
     }
 
-    public boolean updateEffectDone(UUID player, String key, boolean hasNow) {
-        String p = player.toString();
-        Map<String, Boolean> m = effectProgressByPlayer.computeIfAbsent(p, k -> new HashMap<>());
-        boolean prev = Boolean.TRUE.equals(m.get(key));
-        boolean now = prev || hasNow;
-        if (now) {
-            m.put(key, true);
-        } else {
-            m.remove(key);
-            if (m.isEmpty()) effectProgressByPlayer.remove(p);
-        }
-        setDirty();
+    private QuestObjectives existing(UUID player, String questId) {
+        PlayerDataShards.touch(player);
+        Map<String, QuestObjectives> quests = byPlayer.get(player);
+        return quests == null ? null : quests.get(questId);
+    }
+
+    private void removeIfEmpty(UUID player, String questId) {
+        Map<String, QuestObjectives> quests = byPlayer.get(player);
+        if (quests == null) return;
+        QuestObjectives o = quests.get(questId);
+        if (o != null && o.isEmpty()) quests.remove(questId);
+        if (quests.isEmpty()) byPlayer.remove(player);
+    }
+
+    public int getItemProgress(UUID player, String questId, String key) {
+        QuestObjectives o = existing(player, questId);
+        return o == null ? 0 : Math.max(0, o.items.getInt(key));
+    }
+
+    public int updateItemProgress(UUID player, String questId, String key, int current, int required) {
+        QuestObjectives o = existing(player, questId);
+        int prev = o == null ? 0 : Math.max(0, o.items.getInt(key));
+        int now = Math.max(prev, Math.min(Math.max(0, current), Math.max(0, required)));
+        if (now == prev) return now;
+        objectives(player, questId).items.put(key, now);
+        markDirty(player);
         return now;
     }
 
-    public String getInputProgress(UUID player, String key) {
+    public boolean getEffectDone(UUID player, String questId, String key) {
+        QuestObjectives o = existing(player, questId);
+        return o != null && o.effects.contains(key);
+    }
+
+    public boolean updateEffectDone(UUID player, String questId, String key, boolean hasNow) {
+        if (getEffectDone(player, questId, key)) return true;
+        if (!hasNow) return false;
+        objectives(player, questId).effects.add(key);
+        markDirty(player);
+        return true;
+    }
+
+    public String getInputProgress(UUID player, String questId, String key) {
         if (key == null || key.isBlank()) return "";
-        Map<String, String> m = inputProgressByPlayer.get(player.toString());
-        if (m == null) return "";
-        return m.getOrDefault(key, "");
+        QuestObjectives o = existing(player, questId);
+        return o == null ? "" : o.inputs.getOrDefault(key, "");
     }
 
-    public void setInputProgress(UUID player, String key, String value) {
+    public void setInputProgress(UUID player, String questId, String key, String value) {
         if (key == null || key.isBlank()) return;
-        String p = player.toString();
         String normalized = value == null ? "" : value.trim();
+        QuestObjectives o = existing(player, questId);
         if (normalized.isBlank()) {
-            Map<String, String> m = inputProgressByPlayer.get(p);
-            if (m != null) {
-                m.remove(key);
-                if (m.isEmpty()) inputProgressByPlayer.remove(p);
+            if (o != null && o.inputs.remove(key) != null) {
+                removeIfEmpty(player, questId);
+                markDirty(player);
             }
-            setDirty();
             return;
         }
-        inputProgressByPlayer.computeIfAbsent(p, k -> new HashMap<>()).put(key, normalized);
-        setDirty();
+        if (o != null && normalized.equals(o.inputs.get(key))) return;
+        objectives(player, questId).inputs.put(key, normalized);
+        markDirty(player);
     }
 
+    // clears are journaled so a crash can't bring back latched progress for a quest that was already paid out
     public void clearPlayer(UUID player) {
-        String p = player.toString();
-        itemProgressByPlayer.remove(p);
-        effectProgressByPlayer.remove(p);
-        inputProgressByPlayer.remove(p);
-        setDirty();
+        ProgressJournal.record(ProgressJournal.OP_CLEAR_OBJECTIVES, player, "", 0);
+        applyClearPlayer(player);
     }
 
     public void clearQuest(UUID player, String questId) {
-        String p = player.toString();
         if (questId == null || questId.isBlank()) return;
-
-        Map<String, Integer> items = itemProgressByPlayer.get(p);
-        if (items != null) {
-            items.entrySet().removeIf(entry -> entry.getKey() != null && entry.getKey().startsWith(questId + ":"));
-            if (items.isEmpty()) itemProgressByPlayer.remove(p);
+        if (applyClearQuest(player, questId)) {
+            ProgressJournal.record(ProgressJournal.OP_CLEAR_QUEST_OBJECTIVES, player, questId, 0);
         }
+    }
 
-        Map<String, Boolean> effects = effectProgressByPlayer.get(p);
-        if (effects != null) {
-            effects.entrySet().removeIf(entry -> entry.getKey() != null && entry.getKey().startsWith(questId + ":"));
-            if (effects.isEmpty()) effectProgressByPlayer.remove(p);
+    void replay(int op, UUID player, String questId) {
+        switch (op) {
+            case ProgressJournal.OP_CLEAR_OBJECTIVES -> applyClearPlayer(player);
+            case ProgressJournal.OP_CLEAR_QUEST_OBJECTIVES -> applyClearQuest(player, questId);
+            default -> {}
         }
+    }
 
-        Map<String, String> inputs = inputProgressByPlayer.get(p);
-        if (inputs != null) {
-            inputs.entrySet().removeIf(entry -> entry.getKey() != null && entry.getKey().startsWith(questId + ":"));
-            if (inputs.isEmpty()) inputProgressByPlayer.remove(p);
-        }
+    private void applyClearPlayer(UUID player) {
+        PlayerDataShards.touch(player);
+        byPlayer.remove(player);
+        markDirty(player);
+    }
 
-        setDirty();
+    private boolean applyClearQuest(UUID player, String questId) {
+        PlayerDataShards.touch(player);
+        Map<String, QuestObjectives> quests = byPlayer.get(player);
+        if (quests == null || quests.remove(questId) == null) return false;
+        if (quests.isEmpty()) byPlayer.remove(player);
+        markDirty(player);
+        return true;
+    }
+
+    /** Quest id a "<questId>:..." progress key belongs to; quest ids may themselves contain ':'. */
+    static String questIdOf(String key) {
+        if (key == null) return "";
+        String best = null;
+        int idx = key.indexOf(':');
+        while (idx > 0) {
+            String prefix = key.substring(0, idx);
+            if (QuestData.isKnownQuestId(prefix)) best = prefix;
+            idx = key.indexOf(':', idx + 1);
+        }
+        if (best != null) return best;
+        idx = key.indexOf(':');
+        return idx > 0 ? key.substring(0, idx) : key;
     }
 }
@@ -2,25 +2,41 @@ package net.revilodev.boundless.quest;
 
 import net.minecraft.core.HolderLookup;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.LongArrayTag;
+import net.minecraft.nbt.StringTag;
 import net.minecraft.nbt.Tag;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.saveddata.SavedData;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
 public final class QuestProgressState extends SavedData {
-    private final Map<String, Map<String, QuestProgress>> byPlayer = new HashMap<>();
+    private static final int FORMAT_VERSION = 2;
+    private static final String TAG_FORMAT = "formatVersion";
+    private static final String TAG_PLAYERS = "players";
+    private static final String TAG_QUESTS = "quests";
+    private static final String TAG_PACKED = "packed";
 
-    public static final class QuestProgress {
-        private String status;
-        private int claimCount;
-        private boolean scrollRedeemed;
-        private boolean scrollCreated;
+    // packed layout: bits 0-7 status (0 = none, else Status ordinal + 1), bit 8 scroll redeemed,
+    // bit 9 scroll created, bits 32-63 claim count
+    private static final long STATUS_MASK = 0xFFL;
+    private static final long SCROLL_REDEEMED_BIT = 1L << 8;
+    private static final long SCROLL_CREATED_BIT = 1L << 9;
+    private static final int CLAIM_SHIFT = 32;
 
-        QuestProgress() {
-        }
+    private static final QuestTracker.Status[] STATUSES = QuestTracker.Status.values();
+
+    private final Map<UUID, PlayerProgress> byPlayer = new HashMap<>();
+
+    public static final class QuestProgress {
+        private final String status;
+        private final int claimCount;
+        private final boolean scrollRedeemed;
+        private final boolean scrollCreated;
 
         QuestProgress(String status, int claimCount, boolean scrollRedeemed, boolean scrollCreated) {
             this.status = sanitizeStatus(status);
@@ -48,11 +64,31 @@ public final class QuestProgressState extends SavedData {
         public boolean scrollCreated() {
             return scrollCreated;
         }
+    }
+
+    private static final class PlayerProgress {
+        private long[] packed = new long[0];
+        private int size;
 
-        private boolean isEmpty() {
-            return (status == null || status.isBlank()) && claimCount <= 0 && !scrollRedeemed && !scrollCreated;
+        long get(int index) {
+            return index >= 0 && index < packed.length ? packed[index] : 0L;
+        }
+
+        void put(int index, long value) {
+            if (index < 0) return;
+            if (index >= packed.length) {
+                if (value == 0L) return;
+                packed = Arrays.copyOf(packed, Math.max(index + 1, packed.length * 2));
+            }
+            long prev = packed[index];
+            if (prev == 0L && value != 0L) size++;
+            else if (prev != 0L && value == 0L) size--;
+            packed[index] = value;
         }
 
+        boolean isEmpty() {
+            return size == 0;
+        }
     }
 
     private QuestProgressState() {
@@ -68,98 +104,139 @@ public final class QuestProgressState extends SavedData {
 
     public static QuestProgressState load(CompoundTag tag, HolderLookup.Provider provider) {
         QuestProgressState s = new QuestProgressState();
+        if (tag.getInt(TAG_FORMAT) >= FORMAT_VERSION) {
+            CompoundTag players = tag.getCompound(TAG_PLAYERS);
+            for (String playerKey : players.getAllKeys()) {
+                UUID uuid = parseUuid(playerKey);
+                if (uuid == null) continue;
+                s.loadPlayer(uuid, players.getCompound(playerKey));
+            }
+            s.adoptAll();
+            return s;
+        }
+
+        // legacy layout: uuid -> questId -> {status, claimCount, scrollRedeemed, scrollCreated}
         for (String playerKey : tag.getAllKeys()) {
+            UUID uuid = parseUuid(playerKey);
+            if (uuid == null) continue;
             CompoundTag inner = tag.getCompound(playerKey);
-            Map<String, QuestProgress> m = new HashMap<>();
             for (String questId : inner.getAllKeys()) {
                 if (!inner.contains(questId, Tag.TAG_COMPOUND)) continue;
                 CompoundTag progressTag = inner.getCompound(questId);
-                QuestProgress progress = new QuestProgress(
-                        progressTag.getString("status"),
+                long packed = pack(
+                        encodeStatus(progressTag.getString("status")),
                         progressTag.contains("claimCount", Tag.TAG_INT) ? progressTag.getInt("claimCount") : 0,
                         progressTag.getBoolean("scrollRedeemed"),
                         progressTag.getBoolean("scrollCreated")
                 );
-                if (!progress.isEmpty()) m.put(questId, progress);
+                s.putPacked(uuid, QuestData.internQuestId(questId), packed);
             }
-            if (!m.isEmpty()) s.byPlayer.put(playerKey, m);
         }
+        s.adoptAll();
         return s;
     }
 
     @Override
     public CompoundTag save(CompoundTag tag, HolderLookup.Provider provider) {
-        for (Map.Entry<String, Map<String, QuestProgress>> e : byPlayer.entrySet()) {
-            CompoundTag inner = new CompoundTag();
-            for (Map.Entry<String, QuestProgress> q : e.getValue().entrySet()) {
-                QuestProgress progress = q.getValue();
-                if (progress == null || progress.isEmpty()) continue;
-                CompoundTag progressTag = new CompoundTag();
-                if (progress.status() != null && !progress.status().isBlank()) {
-                    progressTag.putString("status", progress.status());
-                }
-                if (progress.claimCount() > 0) {
-                    progressTag.putInt("claimCount", progress.claimCount());
-                }
-                if (progress.scrollRedeemed()) {
-                    progressTag.putBoolean("scrollRedeemed", true);
-                }
-                if (progress.scrollCreated()) {
-                    progressTag.putBoolean("scrollCreated", true);
-                }
-                inner.put(q.getKey(), progressTag);
-            }
-            tag.put(e.getKey(), inner);
+        PlayerDataShards.saveDirty();
+        CompoundTag players = new CompoundTag();
+        for (UUID player : byPlayer.keySet()) {
+            if (PlayerDataShards.isDirty(player)) players.put(player.toString(), savePlayer(player));
         }
+        tag.putInt(TAG_FORMAT, FORMAT_VERSION);
+        tag.put(TAG_PLAYERS, players);
         return tag;
     }
 
+    void loadPlayer(UUID player, CompoundTag inner) {
+        ListTag quests = inner.getList(TAG_QUESTS, Tag.TAG_STRING);
+        long[] packed = inner.getLongArray(TAG_PACKED);
+        int n = Math.min(quests.size(), packed.length);
+        for (int i = 0; i < n; i++) {
+            putPacked(player, QuestData.internQuestId(quests.getString(i)), packed[i]);
+        }
+    }
+
+    CompoundTag savePlayer(UUID player) {
+        CompoundTag inner = new CompoundTag();
+        PlayerProgress progress = byPlayer.get(player);
+        if (progress == null || progress.isEmpty()) return inner;
+        ListTag quests = new ListTag();
+        long[] packed = new long[progress.size];
+        int n = 0;
+        for (int i = 0; i < progress.packed.length && n < packed.length; i++) {
+            long value = progress.packed[i];
+            if (value == 0L) continue;
+            String questId = QuestData.questIdAt(i);
+            if (questId == null) continue;
+            quests.add(StringTag.valueOf(questId));
+            packed[n++] = value;
+        }
+        inner.put(TAG_QUESTS, quests);
+        inner.put(TAG_PACKED, new LongArrayTag(n == packed.length ? packed : Arrays.copyOf(packed, n)));
+        return inner;
+    }
+
+    void evict(UUID player) {
+        byPlayer.remove(player);
+    }
+
+    private void adoptAll() {
+        if (byPlayer.isEmpty()) return;
+        byPlayer.keySet().forEach(PlayerDataShards::adopt);
+        setDirty();
+    }
+
     public Map<String, String> snapshotFor(UUID player) {
-        Map<String, QuestProgress> m = byPlayer.get(player.toString());
-        if (m == null || m.isEmpty()) return Map.of();
+        PlayerDataShards.touch(player);
+        PlayerProgress p = byPlayer.get(player);
+        if (p == null || p.isEmpty()) return Map.of();
         Map<String, String> out = new HashMap<>();
-        m.forEach((questId, progress) -> {
-            String status = progress == null ? null : progress.status();
-            if (status != null && !status.isBlank()) {
-                out.put(questId, status);
-            }
-        });
+        for (int i = 0; i < p.packed.length; i++) {
+            int status = statusCode(p.packed[i]);
+            if (status == 0) continue;
+            String questId = QuestData.questIdAt(i);
+            if (questId != null) out.put(questId, STATUSES[status - 1].name());
+        }
         return out.isEmpty() ? Map.of() : Map.copyOf(out);
     }
 
     public Map<String, QuestProgress> progressSnapshotFor(UUID player) {
-        Map<String, QuestProgress> m = byPlayer.get(player.toString());
-        if (m == null || m.isEmpty()) return Map.of();
-        return Map.copyOf(m);
+        PlayerDataShards.touch(player);
+        PlayerProgress p = byPlayer.get(player);
+        if (p == null || p.isEmpty()) return Map.of();
+        Map<String, QuestProgress> out = new HashMap<>();
+        for (int i = 0; i < p.packed.length; i++) {
+            long packed = p.packed[i];
+            if (packed == 0L) continue;
+            String questId = QuestData.questIdAt(i);
+            if (questId != null) out.put(questId, unpack(packed));
+        }
+        return out.isEmpty() ? Map.of() : Map.copyOf(out);
     }
 
     public String get(UUID player, String questId) {
-        return progress(player, questId).status();
+        int status = statusCode(packed(player, questId));
+        return status == 0 ? null : STATUSES[status - 1].name();
+    }
+
+    public QuestTracker.Status status(UUID player, String questId) {
+        int status = statusCode(packed(player, questId));
+        return status == 0 ? QuestTracker.Status.INCOMPLETE : STATUSES[status - 1];
     }
 
     public QuestProgress progress(UUID player, String questId) {
-        Map<String, QuestProgress> m = byPlayer.get(player.toString());
-        if (m == null) return new QuestProgress();
-        QuestProgress progress = m.get(questId);
-        return progress == null ? new QuestProgress() : new QuestProgress(progress.status(), progress.claimCount(), progress.scrollRedeemed(), progress.scrollCreated());
+        return unpack(packed(player, questId));
     }
 
     public void set(UUID player, String questId, String status) {
-        String key = player.toString();
-        Map<String, QuestProgress> m = byPlayer.computeIfAbsent(key, k -> new HashMap<>());
-        QuestProgress progress = m.computeIfAbsent(questId, ignored -> new QuestProgress());
-        progress.status = sanitizeStatus(status);
-        if (progress.isEmpty()) {
-            m.remove(questId);
-        }
-        if (m.isEmpty()) {
-            byPlayer.remove(key);
-        }
-        setDirty();
+        int code = encodeStatus(status);
+        ProgressJournal.record(ProgressJournal.OP_STATUS, player, questId, code);
+        setStatusCode(player, questId, code);
     }
 
     public int getClaimCount(UUID player, String questId) {
-        return progress(player, questId).claimCount();
+        return claimCount(packed(player, questId));
     }
 
     public boolean hasEverClaimed(UUID player, String questId) {
@@ -167,53 +244,134 @@ public final class QuestProgressState extends SavedData {
     }
 
     public int incrementClaimCount(UUID player, String questId) {
-        String key = player.toString();
-        Map<String, QuestProgress> m = byPlayer.computeIfAbsent(key, k -> new HashMap<>());
-        QuestProgress progress = m.computeIfAbsent(questId, ignored -> new QuestProgress());
-        progress.claimCount = Math.max(0, progress.claimCount) + 1;
-        setDirty();
-        return progress.claimCount;
+        int count = getClaimCount(player, questId) + 1;
+        ProgressJournal.record(ProgressJournal.OP_CLAIMS, player, questId, count);
+        setClaimCount(player, questId, count);
+        return count;
     }
 
     public boolean hasRedeemedScroll(UUID player, String questId) {
-        return progress(player, questId).scrollRedeemed();
+        return (packed(player, questId) & SCROLL_REDEEMED_BIT) != 0L;
     }
 
     public boolean hasCreatedScroll(UUID player, String questId) {
-        return progress(player, questId).scrollCreated();
+        return (packed(player, questId) & SCROLL_CREATED_BIT) != 0L;
     }
 
     public void setScrollRedeemed(UUID player, String questId, boolean redeemed) {
-        String key = player.toString();
-        Map<String, QuestProgress> m = byPlayer.computeIfAbsent(key, k -> new HashMap<>());
-        QuestProgress progress = m.computeIfAbsent(questId, ignored -> new QuestProgress());
-        progress.scrollRedeemed = redeemed;
-        if (progress.isEmpty()) {
-            m.remove(questId);
-        }
-        if (m.isEmpty()) {
-            byPlayer.remove(key);
+        ProgressJournal.record(ProgressJournal.OP_SCROLL_REDEEMED, player, questId, redeemed ? 1 : 0);
+        setFlag(player, questId, SCROLL_REDEEMED_BIT, redeemed);
+    }
+
+    public void setScrollCreated(UUID player, String questId, boolean created) {
+        ProgressJournal.record(ProgressJournal.OP_SCROLL_CREATED, player, questId, created ? 1 : 0);
+        setFlag(player, questId, SCROLL_CREATED_BIT, created);
+    }
+
+    public void clear(UUID player) {
+        ProgressJournal.record(ProgressJournal.OP_CLEAR, player, "", 0);
+        clearPlayer(player);
+    }
+
+    void replay(int op, UUID player, String questId, int value) {
+        switch (op) {
+            case ProgressJournal.OP_STATUS -> setStatusCode(player, questId, value);
+            case ProgressJournal.OP_CLAIMS -> setClaimCount(player, questId, value);
+            case ProgressJournal.OP_SCROLL_REDEEMED -> setFlag(player, questId, SCROLL_REDEEMED_BIT, value != 0);
+            case ProgressJournal.OP_SCROLL_CREATED -> setFlag(player, questId, SCROLL_CREATED_BIT, value != 0);
+            case ProgressJournal.OP_CLEAR -> clearPlayer(player);
+            default -> {}
         }
+    }
+
+    private void setStatusCode(UUID player, String questId, int code) {
+        long packed = packed(player, questId);
+        putPacked(player, QuestData.internQuestId(questId), (packed & ~STATUS_MASK) | (code & STATUS_MASK));
+        markDirty(player);
+    }
+
+    private void setClaimCount(UUID player, String questId, int count) {
+        long packed = packed(player, questId);
+        putPacked(player, QuestData.internQuestId(questId), (packed & 0xFFFFFFFFL) | ((long) Math.max(0, count) << CLAIM_SHIFT));
+        markDirty(player);
+    }
+
+    private void setFlag(UUID player, String questId, long bit, boolean value) {
+        long packed = packed(player, questId);
+        putPacked(player, QuestData.internQuestId(questId), value ? packed | bit : packed & ~bit);
+        markDirty(player);
+    }
+
+    private void clearPlayer(UUID player) {
+        PlayerDataShards.touch(player);
+        byPlayer.remove(player);
+        markDirty(player);
+    }
+
+    private void markDirty(UUID player) {
+        PlayerDataShards.markDirty(player);
         setDirty();
     }
 
-    public void setScrollCreated(UUID player, String questId, boolean created) {
-        String key = player.toString();
-        Map<String, QuestProgress> m = byPlayer.computeIfAbsent(key, k -> new HashMap<>());
-        QuestProgress progress = m.computeIfAbsent(questId, ignored -> new QuestProgress());
-        progress.scrollCreated = created;
-        if (progress.isEmpty()) {
-            m.remove(questId);
+    private long packed(UUID player, String questId) {
+        PlayerDataShards.touch(player);
+        PlayerProgress p = byPlayer.get(player);
+        return p == null ? 0L : p.get(QuestData.questIndex(questId));
+    }
+
+    private void putPacked(UUID player, int index, long value) {
+        if (index < 0) return;
+        PlayerProgress p = byPlayer.get(player);
+        if (p == null) {
+            if (value == 0L) return;
+            p = new PlayerProgress();
+            byPlayer.put(player, p);
         }
-        if (m.isEmpty()) {
-            byPlayer.remove(key);
+        p.put(index, value);
+        if (p.isEmpty()) byPlayer.remove(player);
+    }
+
+    private static long pack(int status, int claimCount, boolean scrollRedeemed, boolean scrollCreated) {
+        long packed = status & STATUS_MASK;
+        if (scrollRedeemed) packed |= SCROLL_REDEEMED_BIT;
+        if (scrollCreated) packed |= SCROLL_CREATED_BIT;
+        return packed | ((long) Math.max(0, claimCount) << CLAIM_SHIFT);
+    }
+
+    private static QuestProgress unpack(long packed) {
+        int status = statusCode(packed);
+        return new QuestProgress(
+                status == 0 ? null : STATUSES[status - 1].name(),
+                claimCount(packed),
+                (packed & SCROLL_REDEEMED_BIT) != 0L,
+                (packed & SCROLL_CREATED_BIT) != 0L
+        );
+    }
+
+    private static int statusCode(long packed) {
+        int status = (int) (packed & STATUS_MASK);
+        return status > STATUSES.length ? 0 : status;
+    }
+
+    private static int claimCount(long packed) {
+        return (int) (packed >>> CLAIM_SHIFT);
+    }
+
+    private static int encodeStatus(String status) {
+        status = sanitizeStatus(status);
+        if (status == null) return 0;
+        for (QuestTracker.Status st : STATUSES) {
+            if (st.name().equals(status)) return st.ordinal() + 1;
         }
-        setDirty();
+        return 0;
     }
 
-    public void clear(UUID player) {
-        byPlayer.remove(player.toString());
-        setDirty();
+    private static UUID parseUuid(String raw) {
+        try {
+            return UUID.fromString(raw);
+        } catch (Exception ignored) {
+            return null;
+        }
     }
 
     private static String sanitizeStatus(String status) {
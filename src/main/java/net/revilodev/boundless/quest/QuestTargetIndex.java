@@ -0,0 +1,167 @@
+package net.revilodev.boundless.quest;
+
+import net.minecraft.core.Holder;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.stats.Stat;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.effect.MobEffect;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.item.BlockItem;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.block.Block;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable lookup from a resolved target (item, tag, entity type, effect,
+ * advancement or stat) to the quests whose completion references it.
+ * Rebuilt by {@link QuestData} whenever the catalogue is (re)loaded.
+ */
+public final class QuestTargetIndex {
+    public static final QuestTargetIndex EMPTY = new QuestTargetIndex(
+            Map.of(), Map.of(), Map.of(), Map.of(), Map.of(), Map.of(), Map.of(), Map.of());
+
+    private final Map<Item, List<QuestData.Quest>> items;
+    private final Map<TagKey<Item>, List<QuestData.Quest>> itemTags;
+    private final Map<TagKey<Block>, List<QuestData.Quest>> blockTags;
+    private final Map<EntityType<?>, List<QuestData.Quest>> entities;
+    private final Map<Holder<MobEffect>, List<QuestData.Quest>> effects;
+    private final Map<ResourceLocation, List<QuestData.Quest>> advancements;
+    private final Map<Stat<?>, List<QuestData.Quest>> stats;
+    private final Map<String, List<QuestData.Quest>> byKind;
+
+    private QuestTargetIndex(Map<Item, List<QuestData.Quest>> items,
+                             Map<TagKey<Item>, List<QuestData.Quest>> itemTags,
+                             Map<TagKey<Block>, List<QuestData.Quest>> blockTags,
+                             Map<EntityType<?>, List<QuestData.Quest>> entities,
+                             Map<Holder<MobEffect>, List<QuestData.Quest>> effects,
+                             Map<ResourceLocation, List<QuestData.Quest>> advancements,
+                             Map<Stat<?>, List<QuestData.Quest>> stats,
+                             Map<String, List<QuestData.Quest>> byKind) {
+        this.items = items;
+        this.itemTags = itemTags;
+        this.blockTags = blockTags;
+        this.entities = entities;
+        this.effects = effects;
+        this.advancements = advancements;
+        this.stats = stats;
+        this.byKind = byKind;
+    }
+
+    public static QuestTargetIndex build(Collection<QuestData.Quest> quests) {
+        Builder b = new Builder();
+        for (QuestData.Quest q : quests) {
+            if (q == null || q.completion == null || q.completion.targets == null) continue;
+            for (QuestData.Target t : q.completion.targets) {
+                if (t == null || t.kind == null) continue;
+                b.add(b.byKind, t.kind, q);
+                try {
+                    b.addTarget(q, t);
+                } catch (Exception ignored) {}
+            }
+        }
+        return b.build();
+    }
+
+    public List<QuestData.Quest> questsOfKind(String kind) {
+        return byKind.getOrDefault(kind, List.of());
+    }
+
+    public Set<QuestData.Quest> questsForItem(ItemStack stack) {
+        if (stack == null || stack.isEmpty()) return Set.of();
+        Set<QuestData.Quest> out = new LinkedHashSet<>(items.getOrDefault(stack.getItem(), List.of()));
+        if (!itemTags.isEmpty()) {
+            stack.getItem().builtInRegistryHolder().tags().forEach(tag -> out.addAll(itemTags.getOrDefault(tag, List.of())));
+        }
+        if (!blockTags.isEmpty() && stack.getItem() instanceof BlockItem bi) {
+            bi.getBlock().builtInRegistryHolder().tags().forEach(tag -> out.addAll(blockTags.getOrDefault(tag, List.of())));
+        }
+        return out;
+    }
+
+    public List<QuestData.Quest> questsForEntity(EntityType<?> type) {
+        return type == null ? List.of() : entities.getOrDefault(type, List.of());
+    }
+
+    public List<QuestData.Quest> questsForEffect(Holder<MobEffect> effect) {
+        return effect == null ? List.of() : effects.getOrDefault(effect, List.of());
+    }
+
+    public List<QuestData.Quest> questsForAdvancement(ResourceLocation id) {
+        return id == null ? List.of() : advancements.getOrDefault(id, List.of());
+    }
+
+    public List<QuestData.Quest> questsForStat(Stat<?> stat) {
+        return stat == null ? List.of() : stats.getOrDefault(stat, List.of());
+    }
+
+    public boolean referencesEntity(EntityType<?> type) {
+        return type != null && entities.containsKey(type);
+    }
+
+    private static final class Builder {
+        private final Map<Item, List<QuestData.Quest>> items = new HashMap<>();
+        private final Map<TagKey<Item>, List<QuestData.Quest>> itemTags = new HashMap<>();
+        private final Map<TagKey<Block>, List<QuestData.Quest>> blockTags = new HashMap<>();
+        private final Map<EntityType<?>, List<QuestData.Quest>> entities = new HashMap<>();
+        private final Map<Holder<MobEffect>, List<QuestData.Quest>> effects = new HashMap<>();
+        private final Map<ResourceLocation, List<QuestData.Quest>> advancements = new HashMap<>();
+        private final Map<Stat<?>, List<QuestData.Quest>> stats = new HashMap<>();
+        private final Map<String, List<QuestData.Quest>> byKind = new HashMap<>();
+
+        private void addTarget(QuestData.Quest q, QuestData.Target t) {
+            if (t.id == null || t.id.isBlank()) return;
+            if (t.isItem() || t.isSubmit()) {
+                boolean tag = t.id.startsWith("#");
+                ResourceLocation rl = ResourceLocation.tryParse(tag ? t.id.substring(1) : t.id);
+                if (rl == null) return;
+                Item item = tag ? null : BuiltInRegistries.ITEM.getOptional(rl).orElse(null);
+                if (item != null) {
+                    add(items, item, q);
+                } else {
+                    add(itemTags, TagKey.create(Registries.ITEM, rl), q);
+                    add(blockTags, TagKey.create(Registries.BLOCK, rl), q);
+                }
+            } else if (t.isEntity()) {
+                ResourceLocation rl = ResourceLocation.tryParse(t.id);
+                if (rl == null) return;
+                BuiltInRegistries.ENTITY_TYPE.getOptional(rl).ifPresent(type -> add(entities, type, q));
+            } else if (t.isEffect()) {
+                ResourceLocation rl = ResourceLocation.tryParse(t.id);
+                if (rl == null) return;
+                BuiltInRegistries.MOB_EFFECT.getHolder(rl).ifPresent(holder -> add(effects, holder, q));
+            } else if (t.isAdvancement()) {
+                ResourceLocation rl = ResourceLocation.tryParse(t.id);
+                if (rl != null) add(advancements, rl, q);
+            } else if (t.isStat()) {
+                Stat<?> stat = CompiledTarget.resolveStat(t.id);
+                if (stat != null) add(stats, stat, q);
+            }
+        }
+
+        private <K> void add(Map<K, List<QuestData.Quest>> map, K key, QuestData.Quest q) {
+            List<QuestData.Quest> list = map.computeIfAbsent(key, k -> new ArrayList<>());
+            if (list.isEmpty() || list.get(list.size() - 1) != q) list.add(q);
+        }
+
+        private QuestTargetIndex build() {
+            return new QuestTargetIndex(freeze(items), freeze(itemTags), freeze(blockTags), freeze(entities),
+                    freeze(effects), freeze(advancements), freeze(stats), freeze(byKind));
+        }
+
+        private static <K> Map<K, List<QuestData.Quest>> freeze(Map<K, List<QuestData.Quest>> map) {
+            Map<K, List<QuestData.Quest>> out = new HashMap<>(map.size());
+            map.forEach((k, v) -> out.put(k, List.copyOf(v)));
+            return Map.copyOf(out);
+        }
+    }
+}
@@ -15,8 +15,10 @@ import net.minecraft.resources.ResourceKey;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.stats.Stats;
 import net.minecraft.world.effect.MobEffect;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.entity.player.Inventory;
 import net.minecraft.world.entity.player.Player;
-import net.minecraft.world.item.BlockItem;
 import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.storage.loot.LootParams;
@@ -32,10 +34,8 @@ import net.revilodev.boundless.compat.LevelUpCompat;
 import net.revilodev.boundless.network.BoundlessNetwork;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
@@ -62,6 +62,15 @@ public final class QuestTracker {
     private static final Map<String, ResourceLocation> RL_CACHE = new HashMap<>();
     private static final Map<String, Optional<Item>> ITEM_BY_ID_CACHE = new HashMap<>();
     private static final Map<String, Holder<MobEffect>> EFFECT_BY_ID_CACHE = new HashMap<>();
+    private static final Map<String, Optional<EntityType<?>>> ENTITY_BY_ID_CACHE = new HashMap<>();
+    private static final Map<UUID, QuestUnlockCache> SERVER_UNLOCKS = new HashMap<>();
+    private static QuestUnlockCache CLIENT_UNLOCKS = null;
+    private static String CLIENT_UNLOCKS_KEY = null;
+    // bumped on every client-side status or claim change so views built from them know when to rebuild
+    private static int CLIENT_STATE_VERSION = 0;
+    private static final Map<UUID, InventorySummary> SERVER_INVENTORIES = new HashMap<>();
+    private static InventorySummary CLIENT_INVENTORY = null;
+    private static long CLIENT_INVENTORY_TIME = Long.MIN_VALUE;
 
     private static boolean SERVER_TOASTS_DISABLED = false;
     private static String ACTIVE_KEY = null;
@@ -100,10 +109,10 @@ public final class QuestTracker {
         return now;
     }
 
-    private static int getPermanentItemProgress(Player player, String key, int current, int required) {
+    private static int getPermanentItemProgress(Player player, String questId, String key, int current, int required) {
         if (player instanceof ServerPlayer sp) {
             return QuestObjectiveState.get(sp.serverLevel())
-                    .updateItemProgress(sp.getUUID(), key, current, required);
+                    .updateItemProgress(sp.getUUID(), questId, key, current, required);
         }
         return getPermanentItemProgress(key, current, required);
     }
@@ -115,28 +124,28 @@ public final class QuestTracker {
         return now;
     }
 
-    private static boolean getPermanentEffectProgress(Player player, String key, boolean hasEffect) {
+    private static boolean getPermanentEffectProgress(Player player, String questId, String key, boolean hasEffect) {
         if (player instanceof ServerPlayer sp) {
             return QuestObjectiveState.get(sp.serverLevel())
-                    .updateEffectDone(sp.getUUID(), key, hasEffect);
+                    .updateEffectDone(sp.getUUID(), questId, key, hasEffect);
         }
         return getPermanentEffectProgress(key, hasEffect);
     }
 
-    public static void setFieldInputProgress(Player player, String key, String value) {
+    public static void setFieldInputProgress(Player player, String questId, String key, String value) {
         if (key == null || key.isBlank()) return;
         String normalized = value == null ? "" : value.trim();
         if (player instanceof ServerPlayer sp) {
-            QuestObjectiveState.get(sp.serverLevel()).setInputProgress(sp.getUUID(), key, normalized);
+            QuestObjectiveState.get(sp.serverLevel()).setInputProgress(sp.getUUID(), questId, key, normalized);
         }
         if (normalized.isBlank()) CLIENT_INPUT_PROGRESS.remove(key);
         else CLIENT_INPUT_PROGRESS.put(key, normalized);
     }
 
-    public static String getFieldInputProgress(Player player, String key) {
+    public static String getFieldInputProgress(Player player, String questId, String key) {
         if (key == null || key.isBlank()) return "";
         if (player instanceof ServerPlayer sp) {
-            return QuestObjectiveState.get(sp.serverLevel()).getInputProgress(sp.getUUID(), key);
+            return QuestObjectiveState.get(sp.serverLevel()).getInputProgress(sp.getUUID(), questId, key);
         }
         return CLIENT_INPUT_PROGRESS.getOrDefault(key, "");
     }
@@ -178,10 +187,24 @@ public final class QuestTracker {
         return resolved.orElse(null);
     }
 
+    private static EntityType<?> resolveEntityById(String entityId) {
+        if (entityId == null || entityId.isBlank()) return null;
+        Optional<EntityType<?>> cached = ENTITY_BY_ID_CACHE.get(entityId);
+        if (cached != null) return cached.orElse(null);
+        ResourceLocation rl = tryParseCached(entityId);
+        Optional<EntityType<?>> resolved = rl == null ? Optional.empty() : BuiltInRegistries.ENTITY_TYPE.getOptional(rl);
+        ENTITY_BY_ID_CACHE.put(entityId, resolved);
+        return resolved.orElse(null);
+    }
+
     private static String computeClientKey() {
         return ClientOnly.computeClientKey();
     }
 
+    public static String clientStateKey() {
+        return computeClientKey();
+    }
+
     private static Map<String, Status> activeStateMap() {
         String key = ACTIVE_KEY;
         if (key == null) key = "default";
@@ -193,27 +216,31 @@ public final class QuestTracker {
         try {
             if (ACTIVE_KEY == null) ensureClientStateLoaded(null);
         } catch (Throwable ignored) {}
-        if (ACTIVE_KEY != null) ClientOnly.saveClientState(ACTIVE_KEY);
+        if (ACTIVE_KEY != null) ClientOnly.flushClientState(ACTIVE_KEY);
     }
 
     private static void ensureClientStateLoaded(Player player) {
         if (FMLEnvironment.dist != Dist.CLIENT) return;
         String key = computeClientKey();
         if (!key.equals(ACTIVE_KEY)) {
-            if (ACTIVE_KEY != null) ClientOnly.saveClientState(ACTIVE_KEY);
+            if (ACTIVE_KEY != null) ClientOnly.flushClientState(ACTIVE_KEY);
             ACTIVE_KEY = key;
             ClientOnly.loadClientState(key);
+            CLIENT_STATE_VERSION++;
         }
     }
 
+    public static int clientStateVersion() {
+        return CLIENT_STATE_VERSION;
+    }
+
     public static Status decodeStatus(String raw) {
         if (raw == null || raw.isBlank()) return Status.INCOMPLETE;
         try { return Status.valueOf(raw); } catch (Exception ignored) { return Status.INCOMPLETE; }
     }
 
     private static Status getServerStatus(ServerPlayer player, String questId) {
-        String raw = QuestProgressState.get(player.serverLevel()).get(player.getUUID(), questId);
-        return decodeStatus(raw);
+        return QuestProgressState.get(player.serverLevel()).status(player.getUUID(), questId);
     }
 
     public static void setServerStatus(ServerPlayer player, String questId, Status st) {
@@ -223,6 +250,8 @@ public final class QuestTracker {
         } else {
             data.set(player.getUUID(), questId, st.name());
         }
+        refreshServerUnlock(player, questId);
+        QuestEvaluator.markQuestChanged(player, questId);
     }
 
     public static Status getStatus(QuestData.Quest q, Player player) {
@@ -275,26 +304,76 @@ public final class QuestTracker {
 
     public static boolean dependenciesMet(QuestData.Quest q, Player player) {
         if (q == null || q.dependencies.isEmpty()) return true;
+        QuestDependencyGraph graph = player instanceof ServerPlayer
+                ? QuestData.dependencyGraph()
+                : QuestData.clientDependencyGraph();
+        int index = graph.indexOf(q.id);
+        if (index >= 0 && graph.quest(index) == q) {
+            return unlockCache(player, graph).dependenciesMet(index, q.lockAfterDependency);
+        }
         if (q.lockAfterDependency) {
             for (String depId : q.dependencies) {
-                QuestData.Quest dep = QuestData.byId(depId).orElse(null);
+                QuestData.Quest dep = questFor(player, depId);
                 if (dep == null) return false;
                 if (hasEverClaimed(dep, player)) return false;
             }
             return true;
         }
         for (String depId : q.dependencies) {
-            QuestData.Quest dep = QuestData.byId(depId).orElse(null);
+            QuestData.Quest dep = questFor(player, depId);
             if (dep == null) return false;
             if (!hasEverClaimed(dep, player)) return false;
         }
         return true;
     }
 
-    private static boolean shouldAutoClaim(QuestData.Quest q) {
+    private static QuestUnlockCache unlockCache(Player player, QuestDependencyGraph graph) {
+        if (player instanceof ServerPlayer sp) {
+            QuestUnlockCache cache = SERVER_UNLOCKS.get(sp.getUUID());
+            if (cache == null || cache.graph() != graph) {
+                cache = QuestUnlockCache.build(graph, id -> hasEverClaimed(id, sp));
+                SERVER_UNLOCKS.put(sp.getUUID(), cache);
+            }
+            return cache;
+        }
+        if (player != null && player.level().isClientSide) ensureClientStateLoaded(player);
+        QuestUnlockCache cache = CLIENT_UNLOCKS;
+        if (cache == null || cache.graph() != graph || !Objects.equals(CLIENT_UNLOCKS_KEY, ACTIVE_KEY)) {
+            cache = QuestUnlockCache.build(graph, id -> hasEverClaimed(id, player));
+            CLIENT_UNLOCKS = cache;
+            CLIENT_UNLOCKS_KEY = ACTIVE_KEY;
+        }
+        return cache;
+    }
+
+    private static void refreshServerUnlock(ServerPlayer player, String questId) {
+        QuestUnlockCache cache = SERVER_UNLOCKS.get(player.getUUID());
+        if (cache == null) return;
+        cache.setClaimed(cache.graph().indexOf(questId), hasEverClaimed(questId, player));
+    }
+
+    private static void refreshClientUnlock(String questId) {
+        QuestUnlockCache cache = CLIENT_UNLOCKS;
+        if (cache == null) return;
+        cache.setClaimed(cache.graph().indexOf(questId), hasEverClaimed(questId, null));
+    }
+
+    public static void forgetServerPlayer(ServerPlayer player) {
+        if (player == null) return;
+        SERVER_UNLOCKS.remove(player.getUUID());
+        SERVER_INVENTORIES.remove(player.getUUID());
+    }
+
+    // the server and the client each read their own catalogue
+    private static QuestData.Quest questFor(Player player, String id) {
+        if (player instanceof ServerPlayer sp) return QuestData.byIdServer(sp.server, id).orElse(null);
+        return QuestData.byId(id).orElse(null);
+    }
+
+    private static boolean shouldAutoClaim(ServerPlayer sp, QuestData.Quest q) {
         if (q == null) return Config.autoClaimQuestRewards();
         if (q.autoComplete) return true;
-        QuestData.Category category = QuestData.categoryById(q.category).orElse(null);
+        QuestData.Category category = QuestData.categoryByIdServer(sp.server, q.category).orElse(null);
         if (category != null && category.autoComplete) return true;
         return Config.autoClaimQuestRewards();
     }
@@ -323,17 +402,6 @@ public final class QuestTracker {
         return hasEverClaimed(questId, player);
     }
 
-    private static boolean isSubmissionQuestType(QuestData.Quest q) {
-        if (q == null || q.type == null) return false;
-        return "submission".equalsIgnoreCase(q.type) || "submit".equalsIgnoreCase(q.type);
-    }
-
-    private static boolean isSubmitTarget(QuestData.Quest q, QuestData.Target t) {
-        if (t == null) return false;
-        if (t.isSubmit()) return true;
-        return isSubmissionQuestType(q) && t.isItem();
-    }
-
     private static boolean hasItemOrSubmitTargets(QuestData.Quest q) {
         if (q == null || q.completion == null || q.completion.targets == null) return false;
         for (QuestData.Target t : q.completion.targets) {
@@ -350,45 +418,77 @@ public final class QuestTracker {
 
         if (!dependenciesMet(q, player)) return false;
 
-        for (QuestData.Target t : q.completion.targets) {
-            if (t == null) continue;
-
-            if (isSubmitTarget(q, t)) {
-                int cur = getCountInInventory(t.id, player);
-                if (cur < t.count) return false;
-                continue;
+        for (CompiledTarget c : QuestData.compiledTargets(q)) {
+            switch (c.kind) {
+                case SUBMIT -> {
+                    if (countInInventory(c, player) < c.count) return false;
+                }
+                case ITEM -> {
+                    int prog = getPermanentItemProgress(player, c.questId, c.progressKey, countInInventory(c, player), c.count);
+                    if (prog < c.count) return false;
+                }
+                case ENTITY -> {
+                    if (killCount(c, player) < c.count) return false;
+                }
+                case EFFECT -> {
+                    boolean hasNow = c.effect != null && player.hasEffect(c.effect);
+                    if (!getPermanentEffectProgress(player, c.questId, c.progressKey, hasNow)) return false;
+                }
+                case ADVANCEMENT -> {
+                    if (!hasAdvancement(c, player)) return false;
+                }
+                case STAT -> {
+                    if (statCount(c, player) < c.count) return false;
+                }
+                case XP -> {
+                    int have = c.xpLevels ? Math.max(0, player.experienceLevel) : currentExperiencePoints(player);
+                    if (have < c.count) return false;
+                }
+                case LEVELUP_LEVEL -> {
+                    if (!LevelUpCompat.meetsLevelRequirement(player, c.count)) return false;
+                }
+                case FIELD -> {
+                    String value = getFieldInputProgress(player, c.questId, c.progressKey);
+                    if (!safeNormalizeFieldInput(value).equals(c.fieldValue)) return false;
+                }
+                default -> {}
             }
+        }
 
-            if (t.isItem()) {
-                String key = q.id + ":" + t.id;
-                int cur = getCountInInventory(t.id, player);
-                int prog = getPermanentItemProgress(player, key, cur, t.count);
-                if (prog < t.count) return false;
-                continue;
-            }
+        return true;
+    }
 
-            if (t.isEntity() && getKillCount(player, t.id) < t.count) return false;
+    private static int countInInventory(CompiledTarget c, Player player) {
+        if (c.item != null) return inventorySummary(player).count(c.item);
+        if (c.itemTag == null) return 0;
+        InventorySummary summary = inventorySummary(player);
+        int found = summary.countTag(c.itemTag);
+        if (found == 0) found = summary.countBlockTag(c.blockTag);
+        return found;
+    }
 
-            if (t.isEffect()) {
-                String key = q.id + ":effect:" + t.id;
-                boolean hasNow = hasEffect(player, t.id);
-                boolean done = getPermanentEffectProgress(player, key, hasNow);
-                if (!done) return false;
-                continue;
-            }
+    private static int killCount(CompiledTarget c, Player player) {
+        if (player instanceof ServerPlayer sp) {
+            KillCounterState kills = KillCounterState.get(sp.serverLevel());
+            return c.entity != null ? kills.get(sp.getUUID(), c.entity) : kills.get(sp.getUUID(), c.target.id);
+        }
+        return getKillCount(player, c.target.id);
+    }
 
-            if (t.isAdvancement() && !hasAdvancement(player, t.id)) return false;
-            if (t.isStat() && getStatCount(player, t.id) < t.count) return false;
-            if (t.isXp() && getXpAmount(player, t.id) < t.count) return false;
-            if (t.isLevelUpLevel() && !LevelUpCompat.meetsLevelRequirement(player, t.count)) return false;
-            if (t.isFieldInput()) {
-                String key = q.id + ":field:" + t.id;
-                String value = getFieldInputProgress(player, key);
-                if (!safeNormalizeFieldInput(value).equals(safeNormalizeFieldInput(t.id))) return false;
-            }
+    private static boolean hasAdvancement(CompiledTarget c, Player player) {
+        if (c.advancement == null) return false;
+        if (player instanceof ServerPlayer sp) {
+            AdvancementHolder holder = c.advancementHolder(sp.server.getAdvancements());
+            return holder != null && hasAdvancementServer(sp, holder);
         }
+        return hasAdvancement(player, c.target.id);
+    }
 
-        return true;
+    private static int statCount(CompiledTarget c, Player player) {
+        if (player instanceof ServerPlayer sp) {
+            return c.stat == null ? 0 : sp.getStats().getValue(c.stat);
+        }
+        return getStatCount(player, c.target.id);
     }
 
     public static int getXpAmount(Player player, String xpType) {
@@ -451,43 +551,64 @@ public final class QuestTracker {
         if (rl == null) return 0;
 
         Item direct = resolveItemById(key);
-        int found = 0;
-        var inventory = player.getInventory();
-        int containerSize = inventory.getContainerSize();
+        InventorySummary summary = inventorySummary(player);
 
         if (isTagSyntax || direct == null) {
-            var itemTag = net.minecraft.tags.TagKey.create(Registries.ITEM, rl);
-            for (int i = 0; i < containerSize; i++) {
-                ItemStack s = inventory.getItem(i);
-                if (!s.isEmpty() && s.is(itemTag)) found += s.getCount();
-            }
-            if (found == 0) {
-                var blockTag = net.minecraft.tags.TagKey.create(Registries.BLOCK, rl);
-                for (int i = 0; i < containerSize; i++) {
-                    ItemStack s = inventory.getItem(i);
-                    if (!s.isEmpty() && s.getItem() instanceof BlockItem bi && bi.getBlock().builtInRegistryHolder().is(blockTag)) {
-                        found += s.getCount();
-                    }
-                }
-            }
-        } else {
-            for (int i = 0; i < containerSize; i++) {
-                ItemStack s = inventory.getItem(i);
-                if (!s.isEmpty() && s.is(direct)) found += s.getCount();
+            int found = summary.countTag(TagKey.create(Registries.ITEM, rl));
+            if (found == 0) found = summary.countBlockTag(TagKey.create(Registries.BLOCK, rl));
+            return found;
+        }
+        return summary.count(direct);
+    }
+
+    private static InventorySummary inventorySummary(Player player) {
+        Inventory inventory = player.getInventory();
+        if (player instanceof ServerPlayer sp) {
+            // only cache while QuestEvaluator's slot listener can tell us about changes
+            if (!QuestEvaluator.watchesInventory(sp)) return InventorySummary.scan(inventory);
+            InventorySummary summary = SERVER_INVENTORIES.get(sp.getUUID());
+            if (summary == null || summary.inventory() != inventory) {
+                summary = InventorySummary.scan(inventory);
+                SERVER_INVENTORIES.put(sp.getUUID(), summary);
             }
+            return summary;
+        }
+        long time = player.level().getGameTime();
+        if (CLIENT_INVENTORY == null || CLIENT_INVENTORY.inventory() != inventory || CLIENT_INVENTORY_TIME != time) {
+            CLIENT_INVENTORY = InventorySummary.scan(inventory);
+            CLIENT_INVENTORY_TIME = time;
         }
+        return CLIENT_INVENTORY;
+    }
 
-        return found;
+    public static void invalidateInventory(ServerPlayer player) {
+        if (player != null) SERVER_INVENTORIES.remove(player.getUUID());
     }
 
     public static int getKillCount(Player player, String entityId) {
         if (player == null || entityId == null || entityId.isBlank()) return 0;
         if (player instanceof ServerPlayer sp) {
-            return KillCounterState.get(sp.serverLevel()).snapshotFor(player.getUUID()).getOrDefault(entityId, 0);
+            EntityType<?> type = resolveEntityById(entityId);
+            KillCounterState kills = KillCounterState.get(sp.serverLevel());
+            return type != null ? kills.get(sp.getUUID(), type) : kills.get(sp.getUUID(), entityId);
         }
         return CLIENT_KILLS.getOrDefault(entityId, 0);
     }
 
+    public static boolean shouldCountKill(ServerPlayer player, EntityType<?> type) {
+        if (player == null || type == null) return false;
+        String mode = Config.killTrackingMode();
+        if ("all".equals(mode)) return true;
+        QuestData.allServer(player.server);
+        List<QuestData.Quest> quests = QuestData.targetIndex().questsForEntity(type);
+        if (quests.isEmpty()) return false;
+        if (!"incomplete".equals(mode)) return true;
+        for (QuestData.Quest q : quests) {
+            if (getServerStatus(player, q.id) == Status.INCOMPLETE) return true;
+        }
+        return false;
+    }
+
     public static boolean hasEffect(Player player, String effectId) {
         if (player == null || effectId == null || effectId.isBlank()) return false;
         Holder<MobEffect> holder = EFFECT_BY_ID_CACHE.get(effectId);
@@ -530,11 +651,14 @@ public final class QuestTracker {
     private static boolean hasAdvancementServer(ServerPlayer sp, ResourceLocation rl) {
         AdvancementHolder holder = sp.server.getAdvancements().get(rl);
         if (holder == null) return false;
+        return hasAdvancementServer(sp, holder);
+    }
 
+    private static boolean hasAdvancementServer(ServerPlayer sp, AdvancementHolder holder) {
         AdvancementProgress prog = sp.getAdvancements().getOrStartProgress(holder);
         boolean done = prog.isDone();
 
-        CLIENT_ADV_DONE.put(rl.toString(), done);
+        CLIENT_ADV_DONE.put(holder.id().toString(), done);
         return done;
     }
 
@@ -762,6 +886,8 @@ public final class QuestTracker {
     public static void markQuestClaimed(ServerPlayer player, QuestData.Quest q) {
         if (player == null || q == null) return;
         QuestProgressState.get(player.serverLevel()).incrementClaimCount(player.getUUID(), q.id);
+        refreshServerUnlock(player, q.id);
+        QuestEvaluator.markQuestChanged(player, q.id);
     }
 
     public static boolean serverRedeem(QuestData.Quest q, ServerPlayer player) {
@@ -814,7 +940,9 @@ public final class QuestTracker {
         if (player instanceof ServerPlayer sp) {
             QuestProgressState.get(sp.serverLevel()).clear(sp.getUUID());
             QuestObjectiveState.get(sp.serverLevel()).clearPlayer(sp.getUUID());
-            BoundlessNetwork.syncPlayer(sp);
+            SERVER_UNLOCKS.remove(sp.getUUID());
+            QuestEvaluator.requestFullScan(sp);
+            BoundlessNetwork.sendSnapshot(sp);
             CLIENT_EFFECT_PROGRESS.clear();
             if (FMLEnvironment.dist == Dist.CLIENT) clientClearAll();
             return;
@@ -834,6 +962,8 @@ public final class QuestTracker {
             activeStateMap().put(questId, st);
             if (st == Status.REDEEMED) clearClientInputForQuest(questId);
         }
+        refreshClientUnlock(questId);
+        CLIENT_STATE_VERSION++;
         if (FMLEnvironment.dist == Dist.CLIENT && ACTIVE_KEY != null) ClientOnly.saveClientState(ACTIVE_KEY);
     }
 
@@ -847,6 +977,8 @@ public final class QuestTracker {
         int sanitized = Math.max(0, count);
         if (sanitized <= 0) CLIENT_CLAIM_COUNTS.remove(questId);
         else CLIENT_CLAIM_COUNTS.put(questId, sanitized);
+        refreshClientUnlock(questId);
+        CLIENT_STATE_VERSION++;
     }
 
     public static void clientSetScrollRedeemed(String questId, boolean redeemed) {
@@ -875,6 +1007,8 @@ public final class QuestTracker {
         CLIENT_CLAIM_COUNTS.clear();
         CLIENT_SCROLL_REDEEMED.clear();
         CLIENT_SCROLL_CREATED.clear();
+        CLIENT_UNLOCKS = null;
+        CLIENT_STATE_VERSION++;
         if (FMLEnvironment.dist == Dist.CLIENT) {
             try { ensureClientStateLoaded(null); } catch (Throwable ignored) {}
             activeStateMap().clear();
@@ -910,37 +1044,31 @@ public final class QuestTracker {
         }
     }
 
-    public static void serverTickPlayer(ServerPlayer sp) {
-        if (sp == null) return;
-
-        QuestData.allServer(sp.server);
-
-        for (QuestData.Quest q : QuestData.allServer(sp.server)) {
-            if (q == null) continue;
-            if (Config.disabledCategories().contains(q.category)) continue;
+    public static void serverEvaluateQuest(ServerPlayer sp, QuestData.Quest q) {
+        if (sp == null || q == null) return;
+        if (Config.disabledCategories().contains(q.category)) return;
 
-            Status cur = getServerStatus(sp, q.id);
-            if (cur == Status.REDEEMED || cur == Status.REJECTED) continue;
+        Status cur = getServerStatus(sp, q.id);
+        if (cur == Status.REDEEMED || cur == Status.REJECTED) return;
 
-            boolean ready = dependenciesMet(q, sp) && isReady(q, sp);
-            boolean hasItemTargets = hasItemOrSubmitTargets(q);
+        boolean ready = dependenciesMet(q, sp) && isReady(q, sp);
+        boolean hasItemTargets = hasItemOrSubmitTargets(q);
 
-            if (ready && cur == Status.INCOMPLETE) {
-                if (shouldAutoClaim(q)) {
-                    BoundlessNetwork.claimQuest(sp, q);
-                } else {
-                    setServerStatus(sp, q.id, Status.COMPLETED);
-                    BoundlessNetwork.sendStatus(sp, q.id, Status.COMPLETED.name());
-                }
-                continue;
+        if (ready && cur == Status.INCOMPLETE) {
+            if (shouldAutoClaim(sp, q)) {
+                BoundlessNetwork.claimQuest(sp, q);
+            } else {
+                setServerStatus(sp, q.id, Status.COMPLETED);
+                BoundlessNetwork.sendStatus(sp, q.id, Status.COMPLETED.name());
             }
+            return;
+        }
 
-            if (hasItemTargets && cur == Status.COMPLETED) continue;
+        if (hasItemTargets && cur == Status.COMPLETED) return;
 
-            if (!ready && cur == Status.COMPLETED) {
-                setServerStatus(sp, q.id, Status.INCOMPLETE);
-                BoundlessNetwork.sendStatus(sp, q.id, Status.INCOMPLETE.name());
-            }
+        if (!ready && cur == Status.COMPLETED) {
+            setServerStatus(sp, q.id, Status.INCOMPLETE);
+            BoundlessNetwork.sendStatus(sp, q.id, Status.INCOMPLETE.name());
         }
     }
 
@@ -1042,15 +1170,21 @@ public final class QuestTracker {
 
         private static void saveClientState(String key) {
             try {
-                Path p = clientSavePath(key);
-                Files.createDirectories(p.getParent());
-                JsonObject obj = new JsonObject();
-                Map<String, Status> map = WORLD_STATES.get(key);
-                if (map != null) map.forEach((qid, st) -> obj.addProperty(qid, st.name()));
-                try (BufferedWriter w = new BufferedWriter(new FileWriter(p.toFile()))) {
-                    GSON.toJson(obj, w);
-                }
+                ClientQuestStateWriter.markDirty(key, clientSavePath(key), () -> snapshotClientState(key));
             } catch (Throwable ignored) {}
         }
+
+        private static void flushClientState(String key) {
+            try {
+                ClientQuestStateWriter.flush(key, clientSavePath(key), () -> snapshotClientState(key));
+            } catch (Throwable ignored) {}
+        }
+
+        private static String snapshotClientState(String key) {
+            JsonObject obj = new JsonObject();
+            Map<String, Status> map = WORLD_STATES.get(key);
+            if (map != null) map.forEach((qid, st) -> obj.addProperty(qid, st.name()));
+            return GSON.toJson(obj);
+        }
     }
 }
@@ -0,0 +1,45 @@
+package net.revilodev.boundless.quest;
+
+import java.util.BitSet;
+import java.util.function.Predicate;
+
+/**
+ * Per-player claimed set over a {@link QuestDependencyGraph}, with a running
+ * count of claimed dependencies per quest so dependency checks are O(1).
+ */
+final class QuestUnlockCache {
+    private final QuestDependencyGraph graph;
+    private final BitSet claimed;
+    private final int[] claimedDependencies;
+
+    private QuestUnlockCache(QuestDependencyGraph graph) {
+        this.graph = graph;
+        this.claimed = new BitSet(graph.size());
+        this.claimedDependencies = new int[graph.size()];
+    }
+
+    static QuestUnlockCache build(QuestDependencyGraph graph, Predicate<String> everClaimed) {
+        QuestUnlockCache cache = new QuestUnlockCache(graph);
+        for (int i = 0; i < graph.size(); i++) {
+            if (everClaimed.test(graph.quest(i).id)) cache.setClaimed(i, true);
+        }
+        return cache;
+    }
+
+    QuestDependencyGraph graph() {
+        return graph;
+    }
+
+    boolean dependenciesMet(int index, boolean lockAfterDependency) {
+        if (graph.hasMissingDependency(index)) return false;
+        int claimedDeps = claimedDependencies[index];
+        return lockAfterDependency ? claimedDeps == 0 : claimedDeps == graph.dependenciesOf(index).length;
+    }
+
+    void setClaimed(int index, boolean value) {
+        if (index < 0 || claimed.get(index) == value) return;
+        claimed.set(index, value);
+        int delta = value ? 1 : -1;
+        for (int dependent : graph.dependentsOf(index)) claimedDependencies[dependent] += delta;
+    }
+}
@@ -2,6 +2,7 @@ package net.revilodev.boundless.quest;
 
 import net.minecraft.server.level.ServerPlayer;
 import net.neoforged.neoforge.event.entity.player.PlayerEvent;
+import net.revilodev.boundless.network.BoundlessNetwork;
 
 public final class ServerQuestEvents {
     private ServerQuestEvents() {
@@ -9,8 +10,9 @@ public final class ServerQuestEvents {
 
     public static void onLogout(PlayerEvent.PlayerLoggedOutEvent e) {
         if (!(e.getEntity() instanceof ServerPlayer sp)) return;
-        QuestProgressState state = QuestProgressState.get(sp.serverLevel());
-        state.setDirty();
-        sp.server.overworld().getDataStorage().save();
+        QuestEvaluator.forget(sp);
+        QuestTracker.forgetServerPlayer(sp);
+        BoundlessNetwork.forgetPlayer(sp);
+        PlayerDataShards.unload(sp);
     }
 }
@@ -2,21 +2,21 @@ package net.revilodev.boundless.quest;
 
 import net.minecraft.server.level.ServerPlayer;
 import net.neoforged.neoforge.event.tick.PlayerTickEvent;
-import net.revilodev.boundless.network.BoundlessNetwork;
+import net.neoforged.neoforge.event.tick.ServerTickEvent;
 
 public final class ServerQuestTicker {
     private ServerQuestTicker() {}
 
-    // check once per second per player
-    private static final int CHECK_INTERVAL_TICKS = 20;
-
     public static void onPlayerTick(PlayerTickEvent.Post e) {
         if (!(e.getEntity() instanceof ServerPlayer sp)) return;
         if (sp.level().isClientSide) return;
-        if ((sp.tickCount % CHECK_INTERVAL_TICKS) != 0) return;
 
-        // Update statuses server-side and notify client on changes
-        QuestTracker.serverTickPlayer(sp);
+        // Re-check quests touched by recent events, with a periodic full scan as a fallback
+        QuestEvaluator.tick(sp);
+    }
 
+    public static void onServerTick(ServerTickEvent.Post e) {
+        // the evaluations queued by player ticks run here, within the per-tick budget
+        QuestEvaluator.runScheduled(e.getServer());
     }
 }